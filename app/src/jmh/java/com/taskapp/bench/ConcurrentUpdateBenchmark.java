@@ -0,0 +1,102 @@
+package com.taskapp.bench;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * 複数のセッションが同じtasks.csvとlogs.csvを同時に更新する場合の、1秒あたりの更新件数を計測します。
+ * スレッドごとに別のDataAccessを作り、担当するタスクを更新しながらログを保存します。
+ * 名前の長さが変わるので、上書き用ファイルへの追記と書き戻しも同時に起きます。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ConcurrentUpdateBenchmark {
+    private static final int TASK_COUNT = 64;
+
+    private CsvFixtures fixtures;
+
+    @Setup
+    public void setUp() {
+        fixtures = new CsvFixtures(10, TASK_COUNT, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixtures.delete();
+    }
+
+    /**
+     * スレッドごとのDataAccessと、次に更新するタスクを保持します。
+     */
+    @State(Scope.Thread)
+    public static class Session {
+        private TaskDataAccess taskDataAccess;
+
+        private LogDataAccess logDataAccess;
+
+        private User repUser;
+
+        private int code;
+
+        private int iteration;
+
+        @Setup
+        public void setUp(ConcurrentUpdateBenchmark benchmark, ThreadParams threadParams) throws AppException {
+            UserDataAccess userDataAccess = new UserDataAccess(benchmark.fixtures.usersPath());
+            taskDataAccess = new TaskDataAccess(benchmark.fixtures.tasksPath(), userDataAccess);
+            logDataAccess = new LogDataAccess(benchmark.fixtures.logsPath());
+            repUser = userDataAccess.findByCode(1);
+            code = threadParams.getThreadIndex() % TASK_COUNT + 1;
+        }
+
+        @TearDown
+        public void tearDown() {
+            logDataAccess.close();
+        }
+
+        void update() throws AppException {
+            iteration++;
+            taskDataAccess.update(new Task(code, "task" + code + "-" + "x".repeat(iteration % 7), iteration % 3,
+                    repUser));
+            logDataAccess.save(new Log(code, repUser.getCode(), iteration % 3, LocalDate.of(2024, 1, 1)));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void update1Thread(Session session) throws AppException {
+        session.update();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void update4Threads(Session session) throws AppException {
+        session.update();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void update16Threads(Session session) throws AppException {
+        session.update();
+    }
+}
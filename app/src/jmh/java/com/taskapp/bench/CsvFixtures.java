@@ -0,0 +1,115 @@
+package com.taskapp.bench;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * ベンチマーク用のusers.csv、tasks.csv、logs.csvを一時ディレクトリに作成します。
+ * 同じ件数であれば毎回同じ内容になります。
+ */
+public class CsvFixtures {
+    private final Path directory;
+
+    private final int userCount;
+
+    private final int taskCount;
+
+    private final int logCount;
+
+    /**
+     * @param userCount ユーザーの件数
+     * @param taskCount タスクの件数
+     * @param logCount  ログの件数
+     */
+    public CsvFixtures(int userCount, int taskCount, int logCount) {
+        this.userCount = userCount;
+        this.taskCount = taskCount;
+        this.logCount = logCount;
+        try {
+            directory = Files.createTempDirectory("taskapp-bench");
+            writeUsers();
+            writeTasks();
+            writeLogs();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String usersPath() {
+        return directory.resolve("users.csv").toString();
+    }
+
+    public String tasksPath() {
+        return directory.resolve("tasks.csv").toString();
+    }
+
+    public String logsPath() {
+        return directory.resolve("logs.csv").toString();
+    }
+
+    public int userCount() {
+        return userCount;
+    }
+
+    public int taskCount() {
+        return taskCount;
+    }
+
+    public static String email(int userCode) {
+        return "user" + userCode + "@example.com";
+    }
+
+    public static String password(int userCode) {
+        return "password" + userCode;
+    }
+
+    /**
+     * 作成したファイルを削除します。
+     */
+    public void delete() {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeUsers() throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(usersPath()))) {
+            writer.write("Code,Name,Email,Password");
+            for (int code = 1; code <= userCount; code++) {
+                writer.newLine();
+                writer.write(code + ",ユーザー" + code + "," + email(code) + "," + password(code));
+            }
+        }
+    }
+
+    private void writeTasks() throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(tasksPath()))) {
+            writer.write("Code,Name,Status,Rep_User_Code");
+            for (int code = 1; code <= taskCount; code++) {
+                writer.newLine();
+                writer.write(code + ",task" + code + "," + (code % 3) + "," + (code % userCount + 1));
+            }
+        }
+    }
+
+    private void writeLogs() throws IOException {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(logsPath()))) {
+            writer.write("Task_Code,Change_User_Code,Status,Change_Date");
+            for (int i = 0; i < logCount; i++) {
+                writer.newLine();
+                writer.write((i % taskCount + 1) + "," + (i % userCount + 1) + "," + (i % 3) + ","
+                        + start.plusDays(i % 365));
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.taskapp.bench;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.model.Log;
+
+/**
+ * LogDataAccess#saveの1件あたりの時間を計測します。
+ * batchSizeが1の場合は1件ごとに書き込み、それ以外はまとめて書き込みます。
+ * saveByOpenAndCloseは比較用に、まとめて書き込む前のsaveと同じく1件ごとにファイルを開閉します。
+ * saveByOpenAndCloseの結果はbatchSizeとfsyncの値に関係なく同じ処理のものです。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LogDataAccessBenchmark {
+    @Param({ "1", "256" })
+    public int batchSize;
+
+    @Param({ "false", "true" })
+    public boolean fsync;
+
+    private CsvFixtures fixtures;
+
+    private LogDataAccess logDataAccess;
+
+    private final Log log = new Log(1, 1, 1, LocalDate.of(2024, 1, 10));
+
+    @Setup
+    public void setUp() {
+        fixtures = new CsvFixtures(10, 10, 0);
+        logDataAccess = new LogDataAccess(fixtures.logsPath(), batchSize, 10, fsync);
+    }
+
+    @TearDown
+    public void tearDown() {
+        logDataAccess.close();
+        fixtures.delete();
+    }
+
+    @Benchmark
+    public void save() {
+        logDataAccess.save(log);
+    }
+
+    @Benchmark
+    public void saveByOpenAndClose() {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fixtures.logsPath(), true))) {
+            writer.newLine();
+            writer.write(log.getTaskCode() + "," + log.getChangeUserCode() + "," + log.getStatus() + ","
+                    + log.getChangeDate());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.taskapp.bench;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.taskapp.dataaccess.LogTable;
+import com.taskapp.model.Log;
+
+/**
+ * 同じ件数のログを保持する場合について、List&lt;Log&gt;とLogTableを作る時間と確保するメモリを比較します。
+ * 1回あたりに確保したバイト数は gradle jmh -PjmhIncludes=LogTableBenchmark -PjmhProfilers=gc の
+ * gc.alloc.rate.normで確認できます。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LogTableBenchmark {
+    @Param({ "100000", "1000000" })
+    public int records;
+
+    private final int firstEpochDay = (int) LocalDate.of(2024, 1, 1).toEpochDay();
+
+    @Benchmark
+    public List<Log> list() {
+        List<Log> logs = new ArrayList<>();
+        for (int i = 0; i < records; i++) {
+            // CSVから読み込んだときと同じく、日付も1件ごとに別のオブジェクトにする
+            logs.add(new Log(i % 1000, i % 10, i % 3, LocalDate.ofEpochDay(firstEpochDay + i % 365)));
+        }
+        return logs;
+    }
+
+    @Benchmark
+    public LogTable table() {
+        LogTable table = new LogTable();
+        for (int i = 0; i < records; i++) {
+            table.add(i % 1000, i % 10, i % 3, firstEpochDay + i % 365);
+        }
+        return table;
+    }
+}
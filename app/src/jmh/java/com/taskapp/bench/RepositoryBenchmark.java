@@ -0,0 +1,105 @@
+package com.taskapp.bench;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.dataaccess.Repositories;
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * 同じデータを読み込んだCSVファイルと組み込みデータベースで、TaskRepositoryとUserRepositoryの操作を計測します。
+ * データベースはインメモリのH2に、CSVファイルの内容を読み込んで使います。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryBenchmark {
+    @Param({ "1000", "100000" })
+    public int taskCount;
+
+    @Param({ "csv", "h2" })
+    public String store;
+
+    private CsvFixtures fixtures;
+
+    private Repositories repositories;
+
+    private TaskRepository tasks;
+
+    private User repUser;
+
+    private int nextCode;
+
+    private int nextStatus;
+
+    @Setup
+    public void setUp() throws AppException {
+        fixtures = new CsvFixtures(Math.max(10, taskCount / 100), taskCount, taskCount);
+        Repositories csv = Repositories.csv(fixtures.usersPath(), fixtures.tasksPath(), fixtures.logsPath());
+        if (store.equals("h2")) {
+            repositories = Repositories.jdbc("jdbc:h2:mem:bench" + taskCount, csv);
+            csv.close();
+        } else {
+            repositories = csv;
+        }
+        tasks = repositories.tasks();
+        repUser = repositories.users().findByCode(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        repositories.close();
+        fixtures.delete();
+    }
+
+    @Benchmark
+    public List<Task> findAll() throws AppException {
+        return tasks.findAll();
+    }
+
+    @Benchmark
+    public List<Task> findPage() throws AppException {
+        return tasks.findPage(1, repUser.getCode(), 0, 20);
+    }
+
+    @Benchmark
+    public Task findByCode() throws AppException {
+        return tasks.findByCode(nextCode());
+    }
+
+    @Benchmark
+    public void update() throws AppException {
+        int code = nextCode();
+        nextStatus = (nextStatus + 1) % 3;
+        tasks.update(new Task(code, "task" + code, nextStatus, repUser));
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> countByStatus() {
+        return tasks.countByStatus();
+    }
+
+    @Benchmark
+    public User login() {
+        return repositories.users().findByEmailAndPassword(CsvFixtures.email(1), CsvFixtures.password(1));
+    }
+
+    private int nextCode() {
+        nextCode = nextCode % taskCount + 1;
+        return nextCode;
+    }
+}
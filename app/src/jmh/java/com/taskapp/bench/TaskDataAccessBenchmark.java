@@ -0,0 +1,101 @@
+package com.taskapp.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.dataaccess.EntityCaches;
+import com.taskapp.dataaccess.ReadMode;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * TaskDataAccessのfindAll、findByCode、updateを計測します。
+ * findAllは、2回目以降の呼び出しではキャッシュから返すので、キャッシュを使う場合(findAllCached)と
+ * 呼び出しのたびにキャッシュを破棄してファイルから読み込む場合(findAllCold)を分けて計測します。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskDataAccessBenchmark {
+    @Param({ "1000", "100000", "1000000" })
+    public int taskCount;
+
+    @Param({ "STREAM", "MAPPED" })
+    public ReadMode readMode;
+
+    private CsvFixtures fixtures;
+
+    private TaskDataAccess taskDataAccess;
+
+    private User repUser;
+
+    private int nextCode;
+
+    private int nextStatus;
+
+    @Setup
+    public void setUp() throws AppException {
+        fixtures = new CsvFixtures(Math.max(10, taskCount / 100), taskCount, 0);
+        UserDataAccess userDataAccess = new UserDataAccess(fixtures.usersPath(), readMode);
+        taskDataAccess = new TaskDataAccess(fixtures.tasksPath(), userDataAccess, readMode);
+        repUser = userDataAccess.findByCode(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixtures.delete();
+    }
+
+    @Benchmark
+    public List<Task> findAllCached() throws AppException {
+        return taskDataAccess.findAll();
+    }
+
+    @Benchmark
+    public List<Task> findAllCold(ColdCache coldCache) throws AppException {
+        return taskDataAccess.findAll();
+    }
+
+    @Benchmark
+    public Task findByCode() throws AppException {
+        return taskDataAccess.findByCode(nextCode());
+    }
+
+    @Benchmark
+    public void update() throws AppException {
+        int code = nextCode();
+        nextStatus = (nextStatus + 1) % 3;
+        taskDataAccess.update(new Task(code, "task" + code, nextStatus, repUser));
+    }
+
+    private int nextCode() {
+        nextCode = nextCode % taskCount + 1;
+        return nextCode;
+    }
+
+    /**
+     * 呼び出しのたびにtasks.csvとusers.csvのキャッシュを破棄します。
+     */
+    @State(Scope.Thread)
+    public static class ColdCache {
+        @Setup(Level.Invocation)
+        public void invalidate(TaskDataAccessBenchmark benchmark) {
+            EntityCaches.invalidateTasks(benchmark.fixtures.tasksPath());
+            EntityCaches.invalidateUsers(benchmark.fixtures.usersPath());
+        }
+    }
+}
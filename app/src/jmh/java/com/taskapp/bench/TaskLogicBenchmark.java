@@ -0,0 +1,68 @@
+package com.taskapp.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.exception.AppException;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.model.User;
+
+/**
+ * TaskLogic#showAllの一覧表示と、条件を指定して先頭のページだけを表示する場合を計測します。出力は捨てます。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TaskLogicBenchmark {
+    @Param({ "1000", "100000" })
+    public int taskCount;
+
+    private CsvFixtures fixtures;
+
+    private TaskLogic taskLogic;
+
+    private User loginUser;
+
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() throws AppException {
+        fixtures = new CsvFixtures(Math.max(10, taskCount / 100), taskCount, 0);
+        UserDataAccess userDataAccess = new UserDataAccess(fixtures.usersPath());
+        taskLogic = new TaskLogic(new TaskDataAccess(fixtures.tasksPath(), userDataAccess),
+                new LogDataAccess(fixtures.logsPath()), userDataAccess);
+        loginUser = userDataAccess.findByCode(1);
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+        fixtures.delete();
+    }
+
+    @Benchmark
+    public void showAll() throws AppException {
+        taskLogic.showAll(loginUser);
+    }
+
+    @Benchmark
+    public void showFirstPageOfMine() throws AppException {
+        taskLogic.showAll(loginUser, TaskDataAccess.ANY, true, 0, 20);
+    }
+}
@@ -0,0 +1,76 @@
+package com.taskapp.bench;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.model.User;
+
+/**
+ * ログイン時に使うUserDataAccess#findByEmailAndPasswordを計測します。
+ * findByFullScanは比較用に、索引を導入する前と同じくusers.csvを全件走査します。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserDataAccessBenchmark {
+    @Param({ "10000", "100000", "1000000" })
+    public int userCount;
+
+    private CsvFixtures fixtures;
+
+    private UserDataAccess userDataAccess;
+
+    private int nextCode;
+
+    @Setup
+    public void setUp() {
+        fixtures = new CsvFixtures(userCount, 1, 0);
+        userDataAccess = new UserDataAccess(fixtures.usersPath());
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixtures.delete();
+    }
+
+    @Benchmark
+    public User findByEmailAndPassword() {
+        nextCode = nextCode % userCount + 1;
+        return userDataAccess.findByEmailAndPassword(CsvFixtures.email(nextCode), CsvFixtures.password(nextCode));
+    }
+
+    @Benchmark
+    public User findByFullScan() {
+        nextCode = nextCode % userCount + 1;
+        String email = CsvFixtures.email(nextCode);
+        String password = CsvFixtures.password(nextCode);
+        User user = null;
+        try (BufferedReader reader = new BufferedReader(new FileReader(fixtures.usersPath()))) {
+            String line;
+            reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",");
+                if (!(values[2].equals(email) && values[3].equals(password)))
+                    continue;
+                user = new User(Integer.parseInt(values[0]), values[1], values[2], values[3]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return user;
+    }
+}
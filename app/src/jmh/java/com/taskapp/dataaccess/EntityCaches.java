@@ -0,0 +1,28 @@
+package com.taskapp.dataaccess;
+
+/**
+ * ベンチマークから、TaskDataAccessとUserDataAccessが共有しているキャッシュを破棄します。
+ * キャッシュを使わずにファイルから読み込む時間を計測するときに使います。
+ */
+public final class EntityCaches {
+    private EntityCaches() {
+    }
+
+    /**
+     * tasks.csvのキャッシュを破棄します。
+     *
+     * @param tasksPath tasks.csvのパス
+     */
+    public static void invalidateTasks(String tasksPath) {
+        EntityCache.shared(tasksPath, tasksPath + ".overlay").invalidate();
+    }
+
+    /**
+     * users.csvのキャッシュを破棄します。
+     *
+     * @param usersPath users.csvのパス
+     */
+    public static void invalidateUsers(String usersPath) {
+        EntityCache.shared(usersPath).invalidate();
+    }
+}
@@ -1,11 +1,17 @@
 package com.taskapp;
 
+import com.taskapp.dataaccess.Repositories;
 import com.taskapp.exception.AppException;
+import com.taskapp.metrics.Metrics;
 import com.taskapp.ui.TaskUI;
 
 public class App {
 
     public static void main(String[] args) throws AppException{  
+        // -Dtaskapp.metrics.fileを指定した場合は、終了時に計測結果をファイルに書き込む
+        Metrics.writeOnExit();
+        // まとめて書き込むためにためているログを、終了時に書き込む
+        Repositories.closeOnExit();
         TaskUI ui = new TaskUI();
         ui.displayMenu();
     }
@@ -0,0 +1,310 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSVファイルの内容を列ごとに並べて保存するバイナリのスナップショットです。
+ * スナップショットはCSVファイルの隣のファイル(tasks.csv.snapなど)に保存し、
+ * 作成したときのCSVファイルのサイズと更新日時がCSVファイルと一致する間だけ使います。
+ * サイズが変わらない書き換えは更新日時の精度内では見分けられないため、書き換える側がスナップショットを削除します。
+ * 整数の列はそのままint配列として読み込み、文字列の列は重複を除いた辞書と、辞書の番号の列として保存します。
+ *
+ * <pre>
+ * int  マジックナンバー
+ * int  バージョン
+ * long 作成したときのCSVファイルのサイズ
+ * long 作成したときのCSVファイルの更新日時(ナノ秒)
+ * int  行数
+ * int  整数の列の数
+ * int  文字列の列があれば1、なければ0
+ * int[行数] × 整数の列の数
+ * (文字列の列があれば)
+ * int[行数] 辞書の番号
+ * int       辞書の件数
+ * (int バイト数, byte[] UTF-8) × 辞書の件数
+ * </pre>
+ */
+final class ColumnSnapshot {
+    private static final int MAGIC = 0x54534E50;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 4 + 4;
+
+    private final int rowCount;
+
+    private final int[][] intColumns;
+
+    /** 文字列の列の各行の辞書の番号。文字列の列がなければnull */
+    private final int[] stringIds;
+
+    private final String[] dictionary;
+
+    private ColumnSnapshot(int rowCount, int[][] intColumns, int[] stringIds, String[] dictionary) {
+        this.rowCount = rowCount;
+        this.intColumns = intColumns;
+        this.stringIds = stringIds;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * 読み込んだ行からスナップショットを作成します。
+     *
+     * @param rowCount   行数
+     * @param intColumns 整数の列。それぞれ行数以上の長さを持つこと
+     * @param strings    文字列の列。行数以上の長さを持つこと。文字列の列がなければnull
+     * @return 作成したスナップショット
+     */
+    static ColumnSnapshot of(int rowCount, int[][] intColumns, String[] strings) {
+        int[][] trimmed = new int[intColumns.length][];
+        for (int column = 0; column < intColumns.length; column++) {
+            trimmed[column] = Arrays.copyOf(intColumns[column], rowCount);
+        }
+        intColumns = trimmed;
+        if (strings == null) {
+            return new ColumnSnapshot(rowCount, intColumns, null, null);
+        }
+        // 同じ文字列は辞書の同じ番号にまとめる
+        Map<String, Integer> ids = new HashMap<>();
+        int[] stringIds = new int[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            Integer id = ids.get(strings[row]);
+            if (id == null) {
+                id = ids.size();
+                ids.put(strings[row], id);
+            }
+            stringIds[row] = id;
+        }
+        String[] dictionary = new String[ids.size()];
+        for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+            dictionary[entry.getValue()] = entry.getKey();
+        }
+        return new ColumnSnapshot(rowCount, intColumns, stringIds, dictionary);
+    }
+
+    /**
+     * CSVファイルのスナップショットを読み込みます。
+     *
+     * @param csvPath CSVファイルのパス
+     * @return 読み込んだスナップショット。スナップショットがないか、CSVファイルより古いか、壊れていればnull
+     */
+    static ColumnSnapshot read(String csvPath) {
+        Path snapshotPath = Paths.get(pathOf(csvPath));
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return null;
+                }
+            }
+            buffer.flip();
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            long[] source = sourceOf(csvPath);
+            if (source == null || buffer.getLong() != source[0] || buffer.getLong() != source[1]) {
+                return null;
+            }
+            int rowCount = buffer.getInt();
+            int intColumnCount = buffer.getInt();
+            boolean hasStrings = buffer.getInt() == 1;
+            int[][] intColumns = new int[intColumnCount][];
+            for (int column = 0; column < intColumnCount; column++) {
+                intColumns[column] = readInts(buffer, rowCount);
+            }
+            if (!hasStrings) {
+                return new ColumnSnapshot(rowCount, intColumns, null, null);
+            }
+            int[] stringIds = readInts(buffer, rowCount);
+            String[] dictionary = new String[buffer.getInt()];
+            for (int id = 0; id < dictionary.length; id++) {
+                int length = buffer.getInt();
+                dictionary[id] = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            }
+            return new ColumnSnapshot(rowCount, intColumns, stringIds, dictionary);
+        } catch (IOException | RuntimeException e) {
+            // スナップショットがないか壊れていれば、CSVファイルから読み込んで作り直す
+            return null;
+        }
+    }
+
+    /**
+     * スナップショットをCSVファイルの隣に保存します。
+     * 書き込み途中で中断しても壊れたスナップショットが残らないように、一時ファイルから置き換えます。
+     *
+     * @param csvPath CSVファイルのパス
+     * @param source  読み込みを始める前に{@link #sourceOf(String)}で取得したCSVファイルの状態
+     */
+    void write(String csvPath, long[] source) {
+        if (source == null) {
+            return;
+        }
+        byte[][] encoded = null;
+        long size = HEADER_BYTES + 4L * rowCount * intColumns.length;
+        if (stringIds != null) {
+            encoded = new byte[dictionary.length][];
+            size += 4L * rowCount + 4;
+            for (int id = 0; id < dictionary.length; id++) {
+                encoded[id] = dictionary[id].getBytes(StandardCharsets.UTF_8);
+                size += 4 + encoded[id].length;
+            }
+        }
+        if (size > Integer.MAX_VALUE) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(source[0]).putLong(source[1]);
+        buffer.putInt(rowCount).putInt(intColumns.length).putInt(stringIds != null ? 1 : 0);
+        for (int[] column : intColumns) {
+            writeInts(buffer, column);
+        }
+        if (stringIds != null) {
+            writeInts(buffer, stringIds);
+            buffer.putInt(dictionary.length);
+            for (byte[] bytes : encoded) {
+                buffer.putInt(bytes.length).put(bytes);
+            }
+        }
+        buffer.flip();
+
+        Path target = Paths.get(pathOf(csvPath));
+        Path temp;
+        try {
+            temp = createTempFile(target);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            deleteTempFile(temp);
+            return;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            deleteTempFile(temp);
+        }
+    }
+
+    /**
+     * 置き換え先と同じディレクトリに、書き込みごとに別の名前の一時ファイルを作成します。
+     * スナップショットや件数は読み込みのロックを持ったまま書き込むため、
+     * 同じ名前の一時ファイルを使うと、同時に書き込んだスレッドやプロセスの内容が混ざることがあります。
+     *
+     * @param target 一時ファイルで置き換えるファイル
+     * @return 作成した空の一時ファイル
+     * @throws IOException 作成に失敗した場合
+     */
+    static Path createTempFile(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        return Files.createTempFile(directory, target.getFileName() + ".", ".tmp");
+    }
+
+    /**
+     * 置き換えに使わなかった一時ファイルを削除します。
+     *
+     * @param temp 一時ファイル
+     */
+    static void deleteTempFile(Path temp) {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * CSVファイルのスナップショットを削除します。
+     * サイズを変えずにCSVファイルを書き換える場合は、更新日時が同じになってもスナップショットを使わないよう、書き換える前に呼び出してください。
+     *
+     * @param csvPath CSVファイルのパス
+     * @throws IOException 削除に失敗した場合
+     */
+    static void delete(String csvPath) throws IOException {
+        Files.deleteIfExists(Paths.get(pathOf(csvPath)));
+    }
+
+    /**
+     * CSVファイルのサイズと更新日時を取得します。スナップショットを作る前に呼び出してください。
+     *
+     * @param csvPath CSVファイルのパス
+     * @return サイズと更新日時(ナノ秒)の配列。ファイルがなければnull
+     */
+    static long[] sourceOf(String csvPath) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Paths.get(csvPath), BasicFileAttributes.class);
+            return new long[] { attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS) };
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 行数を返します。
+     *
+     * @return 行数
+     */
+    int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 整数の列を返します。返した配列は変更しないでください。
+     *
+     * @param column 整数の列の位置(0始まり)
+     * @return 列の値
+     */
+    int[] intColumn(int column) {
+        return intColumns[column];
+    }
+
+    /**
+     * 文字列の列の値を返します。
+     *
+     * @param row 行の位置(0始まり)
+     * @return 列の値
+     */
+    String string(int row) {
+        return dictionary[stringIds[row]];
+    }
+
+    private static String pathOf(String csvPath) {
+        return csvPath + ".snap";
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        IntBuffer ints = buffer.asIntBuffer();
+        ints.get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+
+    private static void writeInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values, 0, values.length);
+        buffer.position(buffer.position() + 4 * values.length);
+    }
+}
@@ -0,0 +1,389 @@
+package com.taskapp.dataaccess;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import com.taskapp.metrics.Counter;
+import com.taskapp.metrics.Metrics;
+
+/**
+ * CSVファイルを1行ずつ読み込み、列の値を取り出します。
+ * 読み込んだバイト列をそのまま走査するため、数値の列は文字列を作らずに変換し、
+ * 文字列が必要な列だけUTF-8で文字列に変換します。
+ * 空行は読み飛ばします。
+ */
+final class CsvTokenizer implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final Counter FILE_OPENS = Metrics.counter("csv.fileOpens");
+    private static final Counter BYTES_READ = Metrics.counter("csv.bytesRead");
+    private static final Counter ROWS_PARSED = Metrics.counter("csv.rowsParsed");
+
+    private final InputStream in;
+
+    /** STREAMで読み込むときのバッファ。MAPPEDのときはnull */
+    private byte[] array;
+
+    /** 走査するデータ。STREAMのときはarrayを包んだもの、MAPPEDのときはファイル全体 */
+    private ByteBuffer data;
+
+    /** dataに読み込んだバイト数 */
+    private int limit;
+
+    /** 次に読む行のdata上の開始位置 */
+    private int position;
+
+    /** data[0]のファイル上の位置 */
+    private long bufferOffset;
+
+    private boolean eof;
+
+    /** 現在の行のdata上の開始位置と終了位置(改行を含まない) */
+    private int rowStart;
+    private int rowEnd;
+
+    /** 現在の行の各列のdata上の開始位置と終了位置 */
+    private int[] fieldStarts = new int[8];
+    private int[] fieldEnds = new int[8];
+    private int fieldCount;
+
+    /** MAPPEDのときに文字列の列をコピーする作業用の配列 */
+    private byte[] scratch;
+
+    /** まだROWS_PARSEDに加算していない行数。行ごとに加算しないよう、読み終えたときと閉じたときにまとめて加算する */
+    private long unreportedRows;
+
+    CsvTokenizer(InputStream in) {
+        this(in, 0);
+    }
+
+    /**
+     * ファイルの途中から読み込むCsvTokenizerを作成します。
+     *
+     * @param in          読み込み開始位置に合わせたInputStream
+     * @param startOffset inの先頭のファイル上の位置
+     */
+    CsvTokenizer(InputStream in, long startOffset) {
+        this(in, startOffset, new byte[DEFAULT_BUFFER_SIZE]);
+    }
+
+    private CsvTokenizer(InputStream in, long startOffset, byte[] array) {
+        this.in = in;
+        this.array = array;
+        this.data = ByteBuffer.wrap(array);
+        this.bufferOffset = startOffset;
+    }
+
+    private CsvTokenizer(ByteBuffer mapped) {
+        this.in = InputStream.nullInputStream();
+        this.data = mapped;
+        this.limit = mapped.limit();
+        this.eof = true;
+    }
+
+    /**
+     * メモリ上の1行以上のデータを読み込むCsvTokenizerを作成します。
+     * 渡した配列はコピーせずにそのまま使います。
+     *
+     * @param bytes 読み込むデータ
+     * @return データを読み込むCsvTokenizer
+     */
+    static CsvTokenizer of(byte[] bytes) {
+        return of(bytes, bytes.length, 0);
+    }
+
+    /**
+     * ファイルの途中から読み込んだメモリ上のデータを読み込むCsvTokenizerを作成します。
+     * 渡した配列はコピーせずにそのまま使います。
+     *
+     * @param bytes       読み込むデータ
+     * @param length      bytesのうち読み込むバイト数
+     * @param startOffset bytes[0]のファイル上の位置
+     * @return データを読み込むCsvTokenizer
+     */
+    static CsvTokenizer of(byte[] bytes, int length, long startOffset) {
+        CsvTokenizer csv = new CsvTokenizer(InputStream.nullInputStream(), startOffset, bytes);
+        csv.limit = length;
+        csv.eof = true;
+        return csv;
+    }
+
+    /**
+     * CSVファイルを開きます。
+     *
+     * @param filePath CSVファイルのパス
+     * @return CSVファイルを読み込むCsvTokenizer
+     * @throws IOException ファイルを開けなかった場合
+     */
+    static CsvTokenizer open(String filePath) throws IOException {
+        FileInputStream in = new FileInputStream(filePath);
+        FILE_OPENS.increment();
+        return new CsvTokenizer(in);
+    }
+
+    /**
+     * 指定した方法でCSVファイルを開きます。
+     * MAPPEDでもファイルが2GB以上の場合はSTREAMで読み込みます。
+     *
+     * @param filePath CSVファイルのパス
+     * @param readMode 読み込み方法
+     * @return CSVファイルを読み込むCsvTokenizer
+     * @throws IOException ファイルを開けなかった場合
+     */
+    static CsvTokenizer open(String filePath, ReadMode readMode) throws IOException {
+        if (readMode != ReadMode.MAPPED) {
+            return open(filePath);
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= Integer.MAX_VALUE) {
+                return open(filePath);
+            }
+            FILE_OPENS.increment();
+            BYTES_READ.add(size);
+            // マッピングはチャネルを閉じた後も有効
+            return new CsvTokenizer(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * CsvTokenizer.openを使わずにファイルから読み込んだことを計測結果に加えます。
+     * ファイルを自分で読み込んでから{@link #of(byte[], int, long)}に渡す場合に呼び出します。
+     *
+     * @param bytes 読み込んだバイト数
+     */
+    static void countFileRead(long bytes) {
+        FILE_OPENS.increment();
+        BYTES_READ.add(bytes);
+    }
+
+    /**
+     * 次の行に進みます。
+     *
+     * @return 次の行があればtrue、ファイルの終わりに達していればfalse
+     * @throws IOException 読み込みに失敗した場合
+     */
+    boolean nextRow() throws IOException {
+        while (true) {
+            int lineEnd = indexOfNewLine(position);
+            while (lineEnd < 0 && !eof) {
+                int scanned = limit - position;
+                fill();
+                lineEnd = indexOfNewLine(position + scanned);
+            }
+            if (lineEnd < 0) {
+                // 最終行は改行で終わっていない
+                if (position >= limit) {
+                    reportRows();
+                    return false;
+                }
+                lineEnd = limit;
+            }
+            rowStart = position;
+            rowEnd = lineEnd;
+            position = lineEnd < limit ? lineEnd + 1 : limit;
+            if (rowEnd > rowStart && data.get(rowEnd - 1) == '\r') {
+                rowEnd--;
+            }
+            if (rowEnd > rowStart) {
+                splitFields();
+                unreportedRows++;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 現在の行の列数を返します。
+     *
+     * @return 列数
+     */
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * 現在の行の指定した列を整数として返します。
+     *
+     * @param index 列の位置(0始まり)
+     * @return 列の値
+     * @throws NumberFormatException 列が整数でない場合
+     */
+    int intField(int index) {
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        boolean negative = start < end && data.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i >= end) {
+            throw new NumberFormatException("For input string: \"" + stringField(index) + "\"");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = data.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + stringField(index) + "\"");
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("For input string: \"" + stringField(index) + "\"");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + stringField(index) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * 現在の行の指定した列をyyyy-MM-dd形式の日付として返します。
+     * 形式が異なる場合はLocalDate#parseで変換します。
+     *
+     * @param index 列の位置(0始まり)
+     * @return 列の値
+     * @throws java.time.format.DateTimeParseException 列が日付でない場合
+     */
+    LocalDate dateField(int index) {
+        int start = fieldStarts[index];
+        if (fieldEnds[index] - start != 10 || data.get(start + 4) != '-' || data.get(start + 7) != '-') {
+            return LocalDate.parse(stringField(index));
+        }
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return LocalDate.parse(stringField(index));
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * 現在の行の指定した列を文字列として返します。
+     *
+     * @param index 列の位置(0始まり)
+     * @return 列の値
+     */
+    String stringField(int index) {
+        int start = fieldStarts[index];
+        int length = fieldEnds[index] - start;
+        if (array != null) {
+            return new String(array, start, length, StandardCharsets.UTF_8);
+        }
+        if (scratch == null || scratch.length < length) {
+            scratch = new byte[Math.max(length, 64)];
+        }
+        data.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 現在の行のファイル上の開始位置を返します。
+     *
+     * @return 行の先頭のバイト位置
+     */
+    long rowOffset() {
+        return bufferOffset + rowStart;
+    }
+
+    /**
+     * 現在の行のバイト数を返します。改行は含みません。
+     *
+     * @return 行のバイト数
+     */
+    int rowLength() {
+        return rowEnd - rowStart;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reportRows();
+        in.close();
+    }
+
+    private void reportRows() {
+        if (unreportedRows > 0) {
+            ROWS_PARSED.add(unreportedRows);
+            unreportedRows = 0;
+        }
+    }
+
+    /**
+     * dataの指定した範囲の数字を整数に変換します。
+     *
+     * @return 変換した値。数字以外が含まれていれば-1
+     */
+    private int digits(int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            int digit = data.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private int indexOfNewLine(int from) {
+        for (int i = from; i < limit; i++) {
+            if (data.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void splitFields() {
+        fieldCount = 0;
+        int start = rowStart;
+        for (int i = rowStart; i <= rowEnd; i++) {
+            if (i == rowEnd || data.get(i) == ',') {
+                if (fieldCount == fieldStarts.length) {
+                    fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+                    fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+                }
+                fieldStarts[fieldCount] = start;
+                fieldEnds[fieldCount] = i;
+                fieldCount++;
+                start = i + 1;
+            }
+        }
+        // String#split(",")と同じく末尾の空の列は数えない
+        while (fieldCount > 0 && fieldStarts[fieldCount - 1] == fieldEnds[fieldCount - 1]) {
+            fieldCount--;
+        }
+    }
+
+    /**
+     * 読み終えた部分を捨ててバッファの後ろに続きを読み込みます。
+     * 1行がバッファに収まらない場合はバッファを広げます。
+     */
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(array, position, array, 0, limit - position);
+            bufferOffset += position;
+            limit -= position;
+            position = 0;
+        }
+        if (limit == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+            data = ByteBuffer.wrap(array);
+        }
+        int read = in.read(array, limit, array.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+            BYTES_READ.add(read);
+        }
+    }
+}
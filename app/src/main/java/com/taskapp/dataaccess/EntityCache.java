@@ -0,0 +1,282 @@
+package com.taskapp.dataaccess;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSVファイルから読み込んだデータをコードをキーにして保持する、プロセス全体で共有するキャッシュです。
+ * 同じファイルを読み込むDataAccessは、インスタンスが異なっても同じキャッシュを使います。
+ * ファイルの更新日時かサイズが変わっていたら保持しているデータを破棄します。
+ * 件数が上限を超えたら、最も長く使われていないデータから破棄します。
+ * 上限はシステムプロパティtaskapp.cache.maxEntriesで変更できます。
+ * {@link #get(int)}と{@link #getAll()}は、前回ファイルの状態を確認してから一定時間(既定では100ミリ秒)は確認を省きます。
+ * そのため別のプロセスによる変更は、その時間だけ遅れて反映されることがあります。
+ * 間隔はシステムプロパティtaskapp.cache.revalidateMillisで変更でき、0を指定すると毎回確認します。
+ * キャッシュは使っているDataAccessがなくなれば破棄されます。
+ *
+ * @param <V> 保持するデータの型
+ */
+final class EntityCache<V> {
+    private static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    private static final long DEFAULT_REVALIDATE_MILLIS = 100;
+
+    /** 正規化したファイルパスをキーにしたキャッシュ。DataAccessが使わなくなったキャッシュは解放する */
+    private static final Map<String, CacheReference> SHARED = new HashMap<>();
+
+    /** 解放されたキャッシュの参照。SHAREDから取り除くのに使う */
+    private static final ReferenceQueue<EntityCache<?>> RELEASED = new ReferenceQueue<>();
+
+    private final String[] filePaths;
+
+    private final int maxEntries;
+
+    /** ファイルの状態を確認する間隔(ナノ秒) */
+    private final long revalidateNanos;
+
+    private final LinkedHashMap<Integer, V> entries;
+
+    /** ファイルの全ての行をファイルの順に並べたもの。件数が上限以下のときだけ保持する */
+    private List<V> allRows;
+
+    /** allRowsと同じ順に並んだ各行のコード */
+    private int[] allCodes;
+
+    private FileStamp[] stamps;
+
+    /** 最後にファイルの状態を確認した時刻(System.nanoTime) */
+    private long validatedAt;
+
+    private EntityCache(String[] filePaths, int maxEntries, long revalidateMillis) {
+        this.filePaths = filePaths;
+        this.maxEntries = maxEntries;
+        this.revalidateNanos = TimeUnit.MILLISECONDS.toNanos(revalidateMillis);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+                return size() > EntityCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 指定したファイルのキャッシュを取得します。
+     * 複数のファイルを指定した場合は、いずれかが変更されたときに破棄します。
+     * 同じファイルのキャッシュを使っているDataAccessがあれば、そのキャッシュを返します。
+     *
+     * @param <V>       保持するデータの型
+     * @param filePaths キャッシュするデータを読み込むファイルのパス
+     * @return 指定したファイルのキャッシュ
+     */
+    @SuppressWarnings("unchecked")
+    static synchronized <V> EntityCache<V> shared(String... filePaths) {
+        expungeReleased();
+        String key = canonicalKey(filePaths);
+        CacheReference reference = SHARED.get(key);
+        EntityCache<?> cache = reference == null ? null : reference.get();
+        if (cache == null) {
+            cache = new EntityCache<>(filePaths, Integer.getInteger("taskapp.cache.maxEntries", DEFAULT_MAX_ENTRIES),
+                    Long.getLong("taskapp.cache.revalidateMillis", DEFAULT_REVALIDATE_MILLIS));
+            SHARED.put(key, new CacheReference(key, cache));
+        }
+        return (EntityCache<V>) cache;
+    }
+
+    /**
+     * 解放されたキャッシュをSHAREDから取り除きます。
+     */
+    private static void expungeReleased() {
+        Reference<? extends EntityCache<?>> released;
+        while ((released = RELEASED.poll()) != null) {
+            CacheReference reference = (CacheReference) released;
+            SHARED.remove(reference.key, reference);
+        }
+    }
+
+    /**
+     * コードを基にデータを取得します。
+     *
+     * @param code データのコード
+     * @return 保持しているデータ。ないか、ファイルが変更されていればnull
+     */
+    synchronized V get(int code) {
+        revalidate();
+        return entries.get(code);
+    }
+
+    /**
+     * ファイルの全ての行を取得します。
+     *
+     * @return ファイルの順に並んだ全ての行。保持していないか、ファイルが変更されていればnull
+     */
+    synchronized List<V> getAll() {
+        revalidate();
+        return allRows;
+    }
+
+    /**
+     * ファイルから読み込んだデータを追加します。
+     *
+     * @param code  データのコード
+     * @param value 追加するデータ
+     * @param stamp 読み込みを始める前に{@link #stamp()}で取得したファイルの状態
+     */
+    synchronized void put(int code, V value, FileStamp[] stamp) {
+        if (!adopt(stamp)) {
+            return;
+        }
+        entries.put(code, value);
+    }
+
+    /**
+     * ファイルから読み込んだ全ての行を追加します。
+     * 件数が上限を超える場合は、最後の行から上限までの件数だけをコードをキーにして保持します。
+     *
+     * @param rows  ファイルの順に並んだ全ての行
+     * @param codes rowsと同じ順に並んだ各行のコード
+     * @param stamp 読み込みを始める前に{@link #stamp()}で取得したファイルの状態
+     */
+    synchronized void putAll(List<V> rows, int[] codes, FileStamp[] stamp) {
+        if (!adopt(stamp)) {
+            return;
+        }
+        // 同じコードが複数ある場合は後の行を優先する
+        for (int i = Math.max(0, rows.size() - maxEntries); i < rows.size(); i++) {
+            entries.put(codes[i], rows.get(i));
+        }
+        if (rows.size() <= maxEntries) {
+            allRows = Collections.unmodifiableList(new ArrayList<>(rows));
+            allCodes = codes.clone();
+        } else {
+            allRows = null;
+            allCodes = null;
+        }
+    }
+
+    /**
+     * 自分で書き込んだ内容をキャッシュに反映し、書き込み後のファイルの状態を正しい状態として受け入れます。
+     * 同じコードを持つ全ての行が置き換わります。
+     * 書き込む前にファイルが別の方法で変更されていた場合は、保持しているデータを全て破棄します。
+     *
+     * @param code   書き込んだデータのコード
+     * @param value  書き込んだデータ
+     * @param before 書き込む前に{@link #stamp()}で取得したファイルの状態
+     */
+    synchronized void writeThrough(int code, V value, FileStamp[] before) {
+        if (stamps != null && !Arrays.equals(stamps, before)) {
+            invalidate();
+            return;
+        }
+        if (entries.containsKey(code)) {
+            entries.put(code, value);
+        }
+        if (allRows != null) {
+            List<V> rows = new ArrayList<>(allRows);
+            for (int i = 0; i < rows.size(); i++) {
+                if (allCodes[i] == code) {
+                    rows.set(i, value);
+                }
+            }
+            allRows = Collections.unmodifiableList(rows);
+        }
+        stamps = currentStamps();
+        validatedAt = System.nanoTime();
+    }
+
+    /**
+     * 保持しているデータを全て破棄します。
+     */
+    synchronized void invalidate() {
+        entries.clear();
+        allRows = null;
+        allCodes = null;
+        stamps = null;
+    }
+
+    /**
+     * 現在のファイルの状態を取得します。ファイルを読み込む前に呼び出してください。
+     *
+     * @return 現在のファイルの状態
+     */
+    FileStamp[] stamp() {
+        return currentStamps();
+    }
+
+    /**
+     * 前回の確認から間隔が空いていれば、ファイルが変更されていないかを確認します。
+     */
+    private void revalidate() {
+        if (stamps != null && System.nanoTime() - validatedAt < revalidateNanos) {
+            return;
+        }
+        validate();
+    }
+
+    /**
+     * ファイルが変更されていれば保持しているデータを破棄します。
+     */
+    private void validate() {
+        if (stamps != null && !Arrays.equals(stamps, currentStamps())) {
+            invalidate();
+        }
+        validatedAt = System.nanoTime();
+    }
+
+    /**
+     * 読み込みに使ったファイルの状態がキャッシュと一致するかを確認し、一致しなければキャッシュを合わせます。
+     *
+     * @return 追加してよければtrue
+     */
+    private boolean adopt(FileStamp[] stamp) {
+        validate();
+        if (stamps == null) {
+            stamps = stamp;
+            validatedAt = System.nanoTime();
+        }
+        return Arrays.equals(stamps, stamp);
+    }
+
+    private FileStamp[] currentStamps() {
+        FileStamp[] current = new FileStamp[filePaths.length];
+        for (int i = 0; i < filePaths.length; i++) {
+            current[i] = FileStamp.of(filePaths[i]);
+        }
+        return current;
+    }
+
+    private static String canonicalKey(String[] filePaths) {
+        StringBuilder key = new StringBuilder();
+        for (String filePath : filePaths) {
+            try {
+                key.append(new File(filePath).getCanonicalPath());
+            } catch (IOException e) {
+                key.append(new File(filePath).getAbsolutePath());
+            }
+            key.append('\n');
+        }
+        return key.toString();
+    }
+
+    /**
+     * SHAREDに登録したキャッシュの参照です。解放されたときにSHAREDから取り除けるようキーを保持します。
+     */
+    private static final class CacheReference extends WeakReference<EntityCache<?>> {
+        private final String key;
+
+        private CacheReference(String key, EntityCache<?> cache) {
+            super(cache, RELEASED);
+            this.key = key;
+        }
+    }
+}
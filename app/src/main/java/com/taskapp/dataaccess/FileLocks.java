@@ -0,0 +1,171 @@
+package com.taskapp.dataaccess;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * CSVファイルの読み書きを複数のスレッドやプロセスの間で調整するロックです。
+ * 同じプロセスの中では、ファイルごとのReadWriteLockで書き込みを1つずつに制限し、読み込み同士は同時に行えるようにします。
+ * 別のプロセスとは、ファイルの隣のロック用ファイル(tasks.csv.lockなど)をFileChannelでロックして調整します。
+ * 読み込みの間は共有ロック、書き込みの間は排他ロックを取得するので、別のプロセスが書き込み途中のファイルを読み込むことはありません。
+ * 読み込みのロックを持ったまま書き込みのロックを取得することはできません。
+ */
+final class FileLocks {
+    /** ファイルの正規化したパスをキーにしたロック */
+    private static final Map<String, PathLock> LOCKS = new ConcurrentHashMap<>();
+
+    private FileLocks() {
+    }
+
+    /**
+     * ロックを解放するためのオブジェクトです。try-with-resources文で使います。
+     */
+    interface Held extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * ファイルを読み込むためのロックを取得します。
+     * 同じプロセスの別のスレッドと、別のプロセスが書き込んでいる間は待ちます。
+     * 書き込みのロックを持っているスレッドは、そのまま読み込みのロックも取得できます。
+     *
+     * @param filePath 読み込むファイルのパス
+     * @return 取得したロック
+     */
+    static Held read(String filePath) {
+        PathLock pathLock = lockOf(filePath);
+        Lock lock = pathLock.lock.readLock();
+        lock.lock();
+        pathLock.acquire(true);
+        return () -> {
+            pathLock.release();
+            lock.unlock();
+        };
+    }
+
+    /**
+     * ファイルに書き込むためのロックを取得します。
+     * 同じプロセスの読み込みと書き込み、別のプロセスの読み込みと書き込みが終わるまで待ちます。
+     * 同じスレッドであれば、書き込みのロックを持ったまま重ねて取得できます。
+     *
+     * @param filePath 書き込むファイルのパス
+     * @return 取得したロック
+     */
+    static Held write(String filePath) {
+        PathLock pathLock = lockOf(filePath);
+        Lock lock = pathLock.lock.writeLock();
+        lock.lock();
+        pathLock.acquire(false);
+        return () -> {
+            pathLock.release();
+            lock.unlock();
+        };
+    }
+
+    private static PathLock lockOf(String filePath) {
+        return LOCKS.computeIfAbsent(canonicalPath(filePath), PathLock::new);
+    }
+
+    private static String canonicalPath(String filePath) {
+        try {
+            return new File(filePath).getCanonicalPath();
+        } catch (IOException e) {
+            return new File(filePath).getAbsolutePath();
+        }
+    }
+
+    /**
+     * 1つのファイルのロックです。
+     * ロック用ファイルのロックは、このプロセスで最初にロックを取得したときに取得し、最後に解放したときに解放します。
+     * 読み込み同士は共有ロックを共有し、書き込みの間に同じスレッドが取得した読み込みのロックは排他ロックに含めます。
+     */
+    private static final class PathLock {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private final String lockPath;
+
+        /** このプロセスでロックを持っている数 */
+        private int holds;
+
+        private FileChannel channel;
+
+        private FileLock fileLock;
+
+        /**
+         * holdsとロック用ファイルのロックを守るロック。
+         * 別のプロセスのロックを待つ間に仮想スレッドがキャリアスレッドを手放せるよう、synchronizedではなくReentrantLockを使う
+         */
+        private final ReentrantLock holdsGuard = new ReentrantLock();
+
+        private PathLock(String path) {
+            this.lockPath = path + ".lock";
+        }
+
+        /**
+         * @param shared 読み込みのロックであればtrue
+         */
+        private void acquire(boolean shared) {
+            holdsGuard.lock();
+            try {
+                // 既に持っているロック用ファイルのロックで足りる。
+                // 共有ロックを持っている間は、ReadWriteLockにより書き込みのロックを取得するスレッドはいない
+                if (holds++ > 0) {
+                    return;
+                }
+                try {
+                    channel = FileChannel.open(Paths.get(lockPath), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                            StandardOpenOption.WRITE);
+                    fileLock = channel.lock(0, Long.MAX_VALUE, shared);
+                } catch (IOException e) {
+                    // ロック用ファイルを作れない場所でも、同じプロセスの中での調整は続ける
+                    e.printStackTrace();
+                    closeChannel();
+                }
+            } finally {
+                holdsGuard.unlock();
+            }
+        }
+
+        private void release() {
+            holdsGuard.lock();
+            try {
+                if (--holds > 0) {
+                    return;
+                }
+                if (fileLock != null) {
+                    try {
+                        fileLock.release();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                    fileLock = null;
+                }
+                closeChannel();
+            } finally {
+                holdsGuard.unlock();
+            }
+        }
+
+        private void closeChannel() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            channel = null;
+        }
+    }
+}
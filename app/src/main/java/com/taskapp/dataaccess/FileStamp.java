@@ -0,0 +1,82 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+
+/**
+ * CSVファイルの更新日時とサイズを保持し、ファイルが変更されたかどうかを判定します。
+ * ファイルを置き換えた場合も検出できるよう、取得できればファイルの識別子も比較します。
+ */
+final class FileStamp {
+    private static final FileStamp MISSING = new FileStamp(null, -1, null);
+
+    private final FileTime lastModified;
+    private final long size;
+    private final Object fileKey;
+
+    private FileStamp(FileTime lastModified, long size, Object fileKey) {
+        this.lastModified = lastModified;
+        this.size = size;
+        this.fileKey = fileKey;
+    }
+
+    /**
+     * 現在のファイルの状態を取得します。
+     *
+     * @param filePath 対象のファイルパス
+     * @return ファイルの更新日時とサイズ。ファイルがなければそのことを表す状態
+     */
+    static FileStamp of(String filePath) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Paths.get(filePath), BasicFileAttributes.class);
+            return new FileStamp(attributes.lastModifiedTime(), attributes.size(), attributes.fileKey());
+        } catch (IOException e) {
+            return MISSING;
+        }
+    }
+
+    /**
+     * ファイルの識別子を返します。ファイルが置き換えられたかどうかの判定に使います。
+     *
+     * @return ファイルの識別子。ファイルがないか、取得できなければnull
+     */
+    Object fileKey() {
+        return fileKey;
+    }
+
+    /**
+     * ファイルのサイズを返します。
+     *
+     * @return ファイルのサイズ。ファイルがなければ-1
+     */
+    long size() {
+        return size;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + Objects.hashCode(lastModified);
+        result = prime * result + Long.hashCode(size);
+        result = prime * result + Objects.hashCode(fileKey);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        FileStamp other = (FileStamp) obj;
+        return size == other.size && Objects.equals(lastModified, other.lastModified)
+                && Objects.equals(fileKey, other.fileKey);
+    }
+}
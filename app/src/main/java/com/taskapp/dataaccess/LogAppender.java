@@ -0,0 +1,193 @@
+package com.taskapp.dataaccess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CSVファイルに行をまとめて追記します。
+ * 追記された行は件数か経過時間のどちらかが上限に達したときにまとめて書き込みます。
+ * まとめて書き込む場合はファイルを開いたままにしておき、{@link #close()}で閉じます。
+ * 追記のたびに書き込む場合は、closeが呼ばれなくてもファイルを開いたままにしないよう、書き込むたびに閉じます。
+ * 書き込む間はファイルの書き込みのロックを取得し、別のLogAppenderや別のプロセスの書き込みと重ならないようにします。
+ *
+ * @see FileLocks
+ */
+final class LogAppender implements Closeable {
+    /** 時間経過による書き込みを行うスレッド。全てのLogAppenderで共有する */
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-appender-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** appendAllでこの文字数がたまったら途中で書き込む */
+    private static final int MAX_PENDING_CHARS = 1024 * 1024;
+
+    private final String filePath;
+
+    private final int maxBatchSize;
+
+    private final long maxDelayMillis;
+
+    private final boolean fsync;
+
+    private final StringBuilder pending = new StringBuilder();
+
+    private int pendingCount;
+
+    private FileChannel channel;
+
+    /** channelを開いたときのファイルの識別子。ファイルが置き換えられたかどうかの判定に使う */
+    private Object channelFileKey;
+
+    private ScheduledFuture<?> scheduledFlush;
+
+    /** synchronizedの中でファイルに書き込むと仮想スレッドがキャリアスレッドを手放せないため、ReentrantLockを使う */
+    private final ReentrantLock monitor = new ReentrantLock();
+
+    /**
+     * @param filePath       追記するファイルのパス
+     * @param maxBatchSize   この件数がたまったら書き込む。1なら追記のたびに書き込む
+     * @param maxDelayMillis 最初の行が追記されてからこの時間が経ったら書き込む
+     * @param fsync          書き込むたびにディスクへの反映を待つかどうか
+     */
+    LogAppender(String filePath, int maxBatchSize, long maxDelayMillis, boolean fsync) {
+        this.filePath = filePath;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxDelayMillis = maxDelayMillis;
+        this.fsync = fsync;
+    }
+
+    /**
+     * 1行分を追記します。直前の行との間には改行を入れます。
+     *
+     * @param line 追記する行
+     */
+    void append(String line) {
+        monitor.lock();
+        try {
+            pending.append('\n').append(line);
+            pendingCount++;
+            if (pendingCount >= maxBatchSize) {
+                flush();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = FLUSHER.schedule(this::flush, maxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * 複数の行をまとめて追記し、書き込みます。
+     * 行が多い場合は、たまった行が一定の大きさを超えるたびに途中で書き込みます。
+     *
+     * @param lines 追記する行
+     */
+    void appendAll(Iterable<String> lines) {
+        monitor.lock();
+        try {
+            for (String line : lines) {
+                pending.append('\n').append(line);
+                pendingCount++;
+                if (pending.length() >= MAX_PENDING_CHARS) {
+                    flush();
+                }
+            }
+            flush();
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * たまっている行をファイルに書き込みます。
+     */
+    @SuppressWarnings("try")
+    void flush() {
+        monitor.lock();
+        try {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+            if (pendingCount == 0) {
+                return;
+            }
+            try (FileLocks.Held lock = FileLocks.write(filePath)) {
+                // 別のインスタンスがファイルを置き換えていたら、置き換えた後のファイルを開き直す
+                if (channel != null && !isCurrentFile()) {
+                    closeChannel();
+                }
+                if (channel == null) {
+                    channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    channelFileKey = FileStamp.of(filePath).fileKey();
+                }
+                ByteBuffer buffer = StandardCharsets.UTF_8.encode(pending.toString());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (fsync) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            pending.setLength(0);
+            pendingCount = 0;
+            if (maxBatchSize == 1) {
+                closeChannel();
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * たまっている行を書き込み、ファイルを閉じます。
+     * 閉じた後に追記した場合はファイルを開き直します。
+     */
+    @Override
+    public void close() {
+        monitor.lock();
+        try {
+            flush();
+            closeChannel();
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * 開いているファイルがまだファイルのパスにあるかどうかを判定します。
+     *
+     * @return 置き換えられていないか、判定できなければtrue
+     */
+    private boolean isCurrentFile() {
+        Object current = FileStamp.of(filePath).fileKey();
+        return channelFileKey == null || current == null || channelFileKey.equals(current);
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            channel = null;
+            channelFileKey = null;
+        }
+    }
+}
@@ -1,17 +1,58 @@
 package com.taskapp.dataaccess;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import com.taskapp.metrics.LatencyHistogram;
+import com.taskapp.metrics.Metrics;
 import com.taskapp.model.Log;
 
-public class LogDataAccess {
+public class LogDataAccess implements LogRepository {
+    private static final LatencyHistogram SAVE_TIME = Metrics.histogram("LogDataAccess.save");
+    private static final LatencyHistogram SAVE_ALL_TIME = Metrics.histogram("LogDataAccess.saveAll");
+    private static final LatencyHistogram FLUSH_TIME = Metrics.histogram("LogDataAccess.flush");
+    private static final LatencyHistogram FIND_ALL_TIME = Metrics.histogram("LogDataAccess.findAll");
+    private static final LatencyHistogram FIND_ALL_AS_TABLE_TIME = Metrics.histogram("LogDataAccess.findAllAsTable");
+    private static final LatencyHistogram FIND_BY_TASK_CODE_TIME = Metrics.histogram("LogDataAccess.findByTaskCode");
+    private static final LatencyHistogram DELETE_BY_TASK_CODE_TIME = Metrics.histogram("LogDataAccess.deleteByTaskCode");
+
+    /** 引数なしのコンストラクタで使うlogs.csvのパス */
+    static final String DEFAULT_FILE_PATH = "app/src/main/resources/logs.csv";
+
     private final String filePath;
 
+    /**
+     * logs.csvに追記する。まとめて書き込むコンストラクタ以外では1件ごとに書き込み、書き込むたびにファイルを閉じる。
+     * アプリケーションが使う{@link Repositories#csv()}ではまとめて書き込む
+     */
+    private final LogAppender appender;
+
+    private final ReadMode readMode;
+
+    /** タスクコードごとのlogs.csvの行の位置 */
+    private final LogIndex index;
 
     public LogDataAccess() {
-        filePath = "app/src/main/resources/logs.csv";
+        filePath = DEFAULT_FILE_PATH;
+        appender = new LogAppender(filePath, 1, 0, false);
+        readMode = ReadMode.STREAM;
+        index = new LogIndex(filePath);
     }
 
     /**
@@ -19,7 +60,36 @@ public class LogDataAccess {
      * @param filePath
      */
     public LogDataAccess(String filePath) {
+        this(filePath, ReadMode.STREAM);
+    }
+
+    /**
+     * 読み込み方法を指定してLogDataAccessを作成します。
+     *
+     * @param filePath ログを保存するCSVファイルのパス
+     * @param readMode CSVファイルの読み込み方法
+     */
+    public LogDataAccess(String filePath, ReadMode readMode) {
+        this.filePath = filePath;
+        this.appender = new LogAppender(filePath, 1, 0, false);
+        this.readMode = readMode;
+        this.index = new LogIndex(filePath);
+    }
+
+    /**
+     * ログをまとめて書き込むLogDataAccessを作成します。
+     * 保存したログは件数か経過時間のどちらかが上限に達するか、flushかcloseを呼び出したときに書き込まれます。
+     *
+     * @param filePath       ログを保存するCSVファイルのパス
+     * @param maxBatchSize   この件数がたまったら書き込む
+     * @param maxDelayMillis 最初のログを保存してからこの時間が経ったら書き込む
+     * @param fsync          書き込むたびにディスクへの反映を待つかどうか
+     */
+    public LogDataAccess(String filePath, int maxBatchSize, long maxDelayMillis, boolean fsync) {
         this.filePath = filePath;
+        this.appender = new LogAppender(filePath, maxBatchSize, maxDelayMillis, fsync);
+        this.readMode = ReadMode.STREAM;
+        this.index = new LogIndex(filePath);
     }
 
     /**
@@ -28,45 +98,350 @@ public class LogDataAccess {
      * @param log 保存するログ
      */
     public void save(Log log) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath,true))) {
+        long startNanos = System.nanoTime();
+        try {
             // Task_Code,Change_User_Code,Status,Change_Date
-            String line =createLine(log);
-            // 改行を追加
-            writer.newLine();
-            // データ１行分追加
-            writer.write(line);
-        } catch (IOException e) {
-            e.printStackTrace();
+            String line = createLine(log);
+            // 改行を付けてデータ１行分追加
+            appender.append(line);
+        } finally {
+            SAVE_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 複数のログをまとめてCSVファイルに保存します。
+     * まだ書き込んでいないログに続けて全てのログを追記し、書き込み終えてから戻ります。
+     *
+     * @param logs 保存するログ。この順に追記する
+     */
+    public void saveAll(Collection<Log> logs) {
+        long startNanos = System.nanoTime();
+        try {
+            List<String> lines = new ArrayList<>(logs.size());
+            for (Log log : logs) {
+                // Task_Code,Change_User_Code,Status,Change_Date
+                lines.add(createLine(log));
+            }
+            appender.appendAll(lines);
+        } finally {
+            SAVE_ALL_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * まだ書き込んでいないログをCSVファイルに書き込みます。
+     */
+    public void flush() {
+        long startNanos = System.nanoTime();
+        try {
+            appender.flush();
+        } finally {
+            FLUSH_TIME.recordSince(startNanos);
         }
     }
 
+    /**
+     * まだ書き込んでいないログを書き込み、CSVファイルを閉じます。
+     */
+    public void close() {
+        appender.close();
+    }
+
     /**
      * すべてのログを取得します。
      *
+     * @see #stream()
      * @return すべてのログのリスト
      */
-    // public List<Log> findAll() {
-    //     try () {
+    public List<Log> findAll() {
+        long startNanos = System.nanoTime();
+        try {
+            try (Stream<Log> logs = stream()) {
+                return logs.collect(Collectors.toList());
+            }
+        } finally {
+            FIND_ALL_TIME.recordSince(startNanos);
+        }
+    }
 
-    //     } catch (IOException e) {
-    //         e.printStackTrace();
-    //     }
-    //     return null;
-    // }
+    /**
+     * ログをファイルの先頭から1件ずつ読み込むStreamを返します。
+     * ログは必要になったときに1行ずつ読み込むため、ファイルの大きさに関わらず使用するメモリは一定です。
+     * limitやfindFirstで途中で打ち切ることができます。
+     * 読み込みが終わったら必ずcloseしてください。
+     * 読み込み方法がSNAPSHOTかPARALLELの場合は、全ての行を読み込んでから返します。
+     *
+     * @return ログのStream
+     */
+    public Stream<Log> stream() {
+        // まだ書き込んでいないログも読み込めるようにする
+        appender.flush();
+        if (readMode == ReadMode.SNAPSHOT || readMode == ReadMode.PARALLEL) {
+            return streamTable();
+        }
+        CsvTokenizer csv = null;
+        try {
+            csv = CsvTokenizer.open(filePath, readMode);
+            // タイトル行を読み飛ばす
+            csv.nextRow();
+        } catch (IOException e) {
+            e.printStackTrace();
+            closeQuietly(csv);
+            return Stream.empty();
+        }
+        CsvTokenizer opened = csv;
+        return StreamSupport.stream(new LogSpliterator(csv), false).onClose(() -> closeQuietly(opened));
+    }
+
+    /**
+     * すべてのログを列ごとのint配列で保持するLogTableとして取得します。
+     * Logオブジェクトを作らないため、大量のログを集計するときに使うメモリを抑えられます。
+     * 読み込み方法がSNAPSHOTの場合はスナップショットから読み込みます。
+     *
+     * @see LogTable
+     * @return ファイルの順に並んだすべてのログ
+     */
+    public LogTable findAllAsTable() {
+        long startNanos = System.nanoTime();
+        try {
+            // まだ書き込んでいないログも読み込めるようにする
+            appender.flush();
+            if (readMode == ReadMode.SNAPSHOT) {
+                return loadSnapshot();
+            }
+            return readTable();
+        } finally {
+            FIND_ALL_AS_TABLE_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 全ての行を読み込んだLogTableからログを返すStreamを作成します。
+     *
+     * @see #findAllAsTable()
+     * @return ログのStream
+     */
+    private Stream<Log> streamTable() {
+        LogTable table = readMode == ReadMode.SNAPSHOT ? loadSnapshot() : readTable();
+        return IntStream.range(0, table.size()).mapToObj(table::get);
+    }
+
+    /**
+     * logs.csvのスナップショットを読み込みます。
+     * スナップショットがlogs.csvより古ければ、logs.csvを読み込んでスナップショットを作り直します。
+     *
+     * @see ColumnSnapshot
+     * @return スナップショットの内容
+     */
+    private LogTable loadSnapshot() {
+        ColumnSnapshot snapshot = ColumnSnapshot.read(filePath);
+        if (snapshot != null) {
+            return new LogTable(snapshot.rowCount(), snapshot.intColumn(0), snapshot.intColumn(1),
+                    snapshot.intColumn(2), snapshot.intColumn(3));
+        }
+        long[] source = ColumnSnapshot.sourceOf(filePath);
+        LogTable table = readTableSequentially();
+        int[][] columns = { table.taskCodes(), table.changeUserCodes(), table.statuses(), table.changeDates() };
+        ColumnSnapshot.of(table.size(), columns, null).write(filePath, source);
+        return table;
+    }
+
+    /**
+     * logs.csvの全ての行をLogTableに読み込みます。
+     * 読み込み方法がPARALLELの場合は範囲に分けて並列に読み込み、ファイルの順につなげます。
+     *
+     * @see ParallelCsvLoader
+     * @return ファイルの順に並んだすべてのログ
+     */
+    private LogTable readTable() {
+        if (readMode != ReadMode.PARALLEL) {
+            return readTableSequentially();
+        }
+        LogTable table = new LogTable(1024);
+        try {
+            List<LogTable> chunks = ParallelCsvLoader.load(filePath, csv -> {
+                LogTable chunk = new LogTable(1024);
+                readRows(csv, chunk);
+                return chunk;
+            });
+            for (LogTable chunk : chunks) {
+                table.addAll(chunk);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return table;
+    }
+
+    /**
+     * logs.csvの全ての行を先頭から順にLogTableに読み込みます。
+     *
+     * @return ファイルの順に並んだすべてのログ
+     */
+    private LogTable readTableSequentially() {
+        LogTable table = new LogTable(1024);
+        try (CsvTokenizer csv = CsvTokenizer.open(filePath, readMode)) {
+            // タイトル行を読み飛ばす
+            csv.nextRow();
+            readRows(csv, table);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return table;
+    }
+
+    /**
+     * CsvTokenizerの残りの行をLogTableに追加します。
+     *
+     * @param csv   読み込むCsvTokenizer
+     * @param table 読み込んだログを追加するLogTable
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private static void readRows(CsvTokenizer csv, LogTable table) throws IOException {
+        while (csv.nextRow()) {
+            // CSVに間違いがあったらスキップする
+            if (csv.fieldCount() != 4) {
+                continue;
+            }
+            table.add(csv.intField(0), csv.intField(1), csv.intField(2), (int) csv.dateField(3).toEpochDay());
+        }
+    }
+
+    /**
+     * 指定したタスクコードのログを取得します。
+     * 索引からログの位置を調べ、その行だけを読み込みます。
+     *
+     * @param taskCode 取得するログのタスクコード
+     * @return 保存した順に並んだログのリスト
+     */
+    @SuppressWarnings("try")
+    public List<Log> findByTaskCode(int taskCode) {
+        long startNanos = System.nanoTime();
+        try {
+            appender.flush();
+            List<Log> logs = new ArrayList<>();
+            // 索引の位置とファイルの内容が食い違わないよう、読み込む間は置き換えさせない
+            try (FileLocks.Held lock = FileLocks.read(filePath)) {
+                int[] entries = index.entriesOf(taskCode);
+                if (entries.length == 0) {
+                    return logs;
+                }
+                try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+                    for (int entry : entries) {
+                        ByteBuffer buffer = ByteBuffer.allocate(index.length(entry));
+                        long position = index.offset(entry);
+                        // 1行分を読み終えるまで続ける
+                        while (buffer.hasRemaining()) {
+                            if (channel.read(buffer, position + buffer.position()) < 0) {
+                                break;
+                            }
+                        }
+                        CsvTokenizer csv = CsvTokenizer.of(buffer.array());
+                        if (csv.nextRow() && csv.fieldCount() == 4) {
+                            logs.add(createLog(csv));
+                        }
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            return logs;
+        } finally {
+            FIND_BY_TASK_CODE_TIME.recordSince(startNanos);
+        }
+    }
 
     /**
      * 指定したタスクコードに該当するログを削除します。
+     * 索引から削除する行の位置を調べ、それ以外の範囲をそのまま一時ファイルにコピーしてから置き換えます。
+     * 行は直前の改行と合わせて削除します。改行がCRLFの行ではCRLFの2バイトを削除します。
+     * 削除するたびにファイル全体をコピーします。
+     * ファイルを置き換えるので、置き換える前に読み込みを始めたStreamは置き換える前の内容を最後まで読み込めます。
+     * 該当するログがなければファイルには触れません。
      *
-     * @see #findAll()
+     * @see #findByTaskCode(int)
      * @param taskCode 削除するログのタスクコード
      */
-    // public void deleteByTaskCode(int taskCode) {
-    //     try () {
+    @SuppressWarnings("try")
+    public void deleteByTaskCode(int taskCode) {
+        long startNanos = System.nanoTime();
+        try {
+            // 置き換えた後に古いファイルへ追記しないよう、開いているファイルを閉じる
+            // LogAppenderは自身のロックの中でファイルのロックを取得するので、ファイルのロックを取得する前に閉じる
+            appender.close();
+            try (FileLocks.Held lock = FileLocks.write(filePath)) {
+                int[] entries = index.entriesOf(taskCode);
+                if (entries.length == 0) {
+                    return;
+                }
+                Path source = Paths.get(filePath);
+                Path temp = Paths.get(filePath + ".tmp");
+                long[] removedBytes = new long[entries.length];
+                try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                        FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    long position = 0;
+                    for (int i = 0; i < entries.length; i++) {
+                        // 行の直前の改行も合わせて削除する
+                        long start = index.offset(entries[i]) - newLineLengthBefore(in, index.offset(entries[i]));
+                        copy(in, position, start, out);
+                        position = index.offset(entries[i]) + index.length(entries[i]);
+                        removedBytes[i] = position - start;
+                    }
+                    copy(in, position, in.size(), out);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return;
+                }
+                try {
+                    Files.move(temp, source, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return;
+                }
+                index.remove(entries, removedBytes);
+            }
+        } finally {
+            DELETE_BY_TASK_CODE_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 行の直前にある改行のバイト数を返します。
+     *
+     * @param in     読み込むファイル
+     * @param offset 行の開始位置
+     * @return 直前の2バイトがCRLFなら2、それ以外は1
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private static int newLineLengthBefore(FileChannel in, long offset) throws IOException {
+        if (offset < 2) {
+            return 1;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(2);
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, offset - 2 + buffer.position()) < 0) {
+                return 1;
+            }
+        }
+        return buffer.get(0) == '\r' && buffer.get(1) == '\n' ? 2 : 1;
+    }
 
-    //     } catch (IOException e) {
-    //         e.printStackTrace();
-    //     }
-    // }
+    /**
+     * ファイルの指定した範囲を別のファイルの末尾にコピーします。
+     *
+     * @param in    コピー元
+     * @param from  コピーする範囲の開始位置
+     * @param to    コピーする範囲の終了位置(この位置は含まない)
+     * @param out   コピー先
+     * @throws IOException 読み書きに失敗した場合
+     */
+    private static void copy(FileChannel in, long from, long to, FileChannel out) throws IOException {
+        while (from < to) {
+            from += in.transferTo(from, to - from, out);
+        }
+    }
 
     /**
      * ログをCSVファイルに書き込むためのフォーマットを作成します。
@@ -78,4 +453,59 @@ public class LogDataAccess {
         return  log.getTaskCode() + "," + log.getChangeUserCode() + "," + log.getStatus() + "," + log.getChangeDate();
     }
 
-}
\ No newline at end of file
+    /**
+     * CsvTokenizerを閉じます。閉じるときの例外は出力するだけで呼び出し元には伝えません。
+     *
+     * @param csv 閉じるCsvTokenizer。nullなら何もしない
+     */
+    private static void closeQuietly(CsvTokenizer csv) {
+        if (csv == null) {
+            return;
+        }
+        try {
+            csv.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * CSVの現在の行からログを作成します。
+     *
+     * @param csv Task_Code,Change_User_Code,Status,Change_Dateの行を指しているCsvTokenizer
+     * @return 作成したログ
+     */
+    private static Log createLog(CsvTokenizer csv) {
+        // Log(int taskCode, int changeUserCode, int status, LocalDate changeDate)
+        return new Log(csv.intField(0), csv.intField(1), csv.intField(2), csv.dateField(3));
+    }
+
+    /**
+     * logs.csvを1行ずつ読み込み、ログとして返します。
+     */
+    private static final class LogSpliterator extends Spliterators.AbstractSpliterator<Log> {
+        private final CsvTokenizer csv;
+
+        private LogSpliterator(CsvTokenizer csv) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.csv = csv;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Log> action) {
+            try {
+                while (csv.nextRow()) {
+                    // CSVに間違いがあったらスキップする
+                    if (csv.fieldCount() != 4) {
+                        continue;
+                    }
+                    action.accept(createLog(csv));
+                    return true;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return false;
+        }
+    }
+}
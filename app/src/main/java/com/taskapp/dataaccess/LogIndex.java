@@ -0,0 +1,311 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * logs.csvの各行の位置をタスクコードごとにまとめた索引です。
+ * 索引はlogs.csvの隣のファイル(logs.csv.idx)に、1行につき
+ * タスクコード(int)、行の開始位置(long)、行のバイト数(int)の16バイトで追記していきます。
+ * logs.csvに索引が記録している範囲より後ろの行があれば、その行だけを読み込んで索引に追加します。
+ */
+final class LogIndex {
+    private static final int ENTRY_BYTES = 16;
+
+    private final String filePath;
+
+    private final String indexPath;
+
+    /** 索引に記録した行。ファイルの順に並んでいる */
+    private int entryCount;
+    private int[] taskCodes = new int[64];
+    private long[] offsets = new long[64];
+    private int[] lengths = new int[64];
+
+    /** タスクコードをキーにした、そのタスクの行の番号 */
+    private Map<Integer, Postings> postings;
+
+    /** 索引に記録したlogs.csvの範囲の終わりの位置 */
+    private long coveredLength;
+
+    /** 索引を読み込んだときのlogs.csvの識別子 */
+    private Object fileKey;
+
+    LogIndex(String filePath) {
+        this.filePath = filePath;
+        this.indexPath = filePath + ".idx";
+    }
+
+    /**
+     * 指定したタスクのログの行の番号を返します。
+     * 呼び出す前にlogs.csvに追記された行があれば索引に追加します。
+     *
+     * @param taskCode タスクコード
+     * @return ファイルの順に並んだ行の番号。ログがなければ空の配列
+     */
+    synchronized int[] entriesOf(int taskCode) {
+        refresh();
+        Postings found = postings.get(taskCode);
+        return found == null ? new int[0] : Arrays.copyOf(found.entries, found.count);
+    }
+
+    /**
+     * 行の開始位置を返します。
+     *
+     * @param entry 行の番号
+     * @return 行の先頭のバイト位置
+     */
+    synchronized long offset(int entry) {
+        return offsets[entry];
+    }
+
+    /**
+     * 行のバイト数を返します。改行は含みません。
+     *
+     * @param entry 行の番号
+     * @return 行のバイト数
+     */
+    synchronized int length(int entry) {
+        return lengths[entry];
+    }
+
+    /**
+     * logs.csvから行を取り除いた後に呼び出し、索引からも取り除きます。
+     * 取り除いたバイト数だけ、後ろの行の位置をずらします。
+     *
+     * @param removed      取り除いた行の番号。昇順に並んでいること
+     * @param removedBytes 行ごとに取り除いたバイト数。行の直前の改行を含む
+     */
+    synchronized void remove(int[] removed, long[] removedBytes) {
+        int next = 0;
+        int kept = 0;
+        long shift = 0;
+        for (int entry = 0; entry < entryCount; entry++) {
+            if (next < removed.length && removed[next] == entry) {
+                shift += removedBytes[next];
+                next++;
+                continue;
+            }
+            taskCodes[kept] = taskCodes[entry];
+            offsets[kept] = offsets[entry] - shift;
+            lengths[kept] = lengths[entry];
+            kept++;
+        }
+        entryCount = kept;
+        coveredLength -= shift;
+        fileKey = FileStamp.of(filePath).fileKey();
+        rebuildPostings();
+        writeIndexFile();
+    }
+
+    /**
+     * 索引ファイルを読み込み、logs.csvの記録していない範囲を読み込んで索引に追加します。
+     * 索引ファイルがlogs.csvと食い違っている場合は作り直します。
+     */
+    private void refresh() {
+        // 別のインスタンスがログを削除してlogs.csvを置き換えていたら、書き直された索引ファイルを読み込み直す
+        Object currentFileKey = FileStamp.of(filePath).fileKey();
+        if (postings != null && fileKey != null && !fileKey.equals(currentFileKey)) {
+            postings = null;
+        }
+        fileKey = currentFileKey;
+        if (postings == null) {
+            readIndexFile();
+            if (!matchesLogFile()) {
+                entryCount = 0;
+                coveredLength = 0;
+                new File(indexPath).delete();
+            }
+            rebuildPostings();
+        }
+        long fileLength = new File(filePath).length();
+        if (fileLength < coveredLength) {
+            // logs.csvが別の方法で書き換えられた
+            entryCount = 0;
+            coveredLength = 0;
+            postings.clear();
+            new File(indexPath).delete();
+        }
+        if (fileLength > coveredLength) {
+            indexTail();
+        }
+    }
+
+    /**
+     * logs.csvの記録していない範囲を読み込み、索引と索引ファイルに追加します。
+     */
+    private void indexTail() {
+        int firstNew = entryCount;
+        try (FileInputStream in = new FileInputStream(filePath)) {
+            in.getChannel().position(coveredLength);
+            CsvTokenizer csv = new CsvTokenizer(new BufferedInputStream(in), coveredLength);
+            if (coveredLength == 0) {
+                // タイトル行を読み飛ばす
+                csv.nextRow();
+                coveredLength = csv.rowOffset() + csv.rowLength();
+            }
+            while (csv.nextRow()) {
+                // CSVに間違いがあったらスキップする
+                if (csv.fieldCount() == 4) {
+                    add(csv.intField(0), csv.rowOffset(), csv.rowLength());
+                }
+                coveredLength = csv.rowOffset() + csv.rowLength();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        appendIndexFile(firstNew);
+    }
+
+    private void add(int taskCode, long offset, int length) {
+        postings.computeIfAbsent(taskCode, key -> new Postings()).add(entryCount);
+        store(taskCode, offset, length);
+    }
+
+    private void store(int taskCode, long offset, int length) {
+        if (entryCount == taskCodes.length) {
+            int capacity = entryCount * 2;
+            taskCodes = Arrays.copyOf(taskCodes, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        taskCodes[entryCount] = taskCode;
+        offsets[entryCount] = offset;
+        lengths[entryCount] = length;
+        entryCount++;
+    }
+
+    private void rebuildPostings() {
+        postings = new HashMap<>();
+        for (int entry = 0; entry < entryCount; entry++) {
+            postings.computeIfAbsent(taskCodes[entry], key -> new Postings()).add(entry);
+        }
+    }
+
+    /**
+     * 索引ファイルを読み込みます。ファイルが壊れていれば読み込めたところまでを使います。
+     */
+    private void readIndexFile() {
+        entryCount = 0;
+        coveredLength = 0;
+        File file = new File(indexPath);
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            long count = file.length() / ENTRY_BYTES;
+            for (long i = 0; i < count; i++) {
+                int taskCode = in.readInt();
+                long offset = in.readLong();
+                int length = in.readInt();
+                // 別のインスタンスが同じ範囲を追記していた場合は重複を読み飛ばす
+                if (offset < coveredLength) {
+                    continue;
+                }
+                store(taskCode, offset, length);
+                coveredLength = offset + length;
+            }
+        } catch (EOFException e) {
+            // 書き込み途中の最後の行は使わない
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 索引の最後の行がlogs.csvの同じ位置の行と一致するかを確認します。
+     *
+     * @return 一致するか、索引が空であればtrue
+     */
+    private boolean matchesLogFile() {
+        if (entryCount == 0) {
+            return true;
+        }
+        int last = entryCount - 1;
+        if (new File(filePath).length() < offsets[last] + lengths[last]) {
+            return false;
+        }
+        byte[] expected = (taskCodes[last] + ",").getBytes(StandardCharsets.UTF_8);
+        byte[] actual = new byte[expected.length];
+        try (RandomAccessFile file = new RandomAccessFile(filePath, "r")) {
+            file.seek(offsets[last]);
+            file.readFully(actual);
+        } catch (IOException e) {
+            return false;
+        }
+        return Arrays.equals(expected, actual);
+    }
+
+    /**
+     * 指定した番号以降の行を索引ファイルに追記します。
+     */
+    private void appendIndexFile(int from) {
+        if (from == entryCount) {
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(indexPath, true)))) {
+            writeEntries(out, from);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 索引ファイルを書き直します。書き込み途中で中断しても元の索引ファイルが残るように、一時ファイルから置き換えます。
+     */
+    private void writeIndexFile() {
+        String tempPath = indexPath + ".tmp";
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempPath)))) {
+            writeEntries(out, 0);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(Paths.get(tempPath), Paths.get(indexPath), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void writeEntries(DataOutputStream out, int from) throws IOException {
+        for (int entry = from; entry < entryCount; entry++) {
+            out.writeInt(taskCodes[entry]);
+            out.writeLong(offsets[entry]);
+            out.writeInt(lengths[entry]);
+        }
+    }
+
+    /**
+     * 1つのタスクコードを持つ行の番号の一覧です。
+     */
+    private static final class Postings {
+        private int[] entries = new int[4];
+        private int count;
+
+        private void add(int entry) {
+            if (count == entries.length) {
+                entries = Arrays.copyOf(entries, count * 2);
+            }
+            entries[count++] = entry;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.taskapp.dataaccess;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログの保存先です。
+ *
+ * @see Repositories
+ */
+public interface LogRepository {
+    /**
+     * ログを保存します。
+     *
+     * @param log 保存するログ
+     */
+    void save(Log log);
+
+    /**
+     * 複数のログをまとめて保存します。
+     *
+     * @param logs 保存するログ。この順に保存する
+     */
+    void saveAll(Collection<Log> logs);
+
+    /**
+     * まだ書き込んでいないログを書き込みます。保存したログをすぐに書き込む保存先では何もしません。
+     */
+    default void flush() {
+    }
+
+    /**
+     * 全てのログを保存した順に取得します。
+     *
+     * @return ログのリスト
+     */
+    List<Log> findAll();
+
+    /**
+     * タスクコードが一致するログを保存した順に取得します。
+     *
+     * @param taskCode タスクコード
+     * @return 一致したログのリスト
+     */
+    List<Log> findByTaskCode(int taskCode);
+
+    /**
+     * タスクコードが一致するログを全て削除します。
+     *
+     * @param taskCode 削除するログのタスクコード
+     */
+    void deleteByTaskCode(int taskCode);
+}
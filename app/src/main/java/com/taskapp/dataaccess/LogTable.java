@@ -0,0 +1,302 @@
+package com.taskapp.dataaccess;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログを列ごとのint配列で保持する表です。
+ * Logオブジェクトを1件ずつ作らないため、大量のログを集計するときに使うメモリを抑えられます。
+ * 変更日はエポック日数として保持します。
+ * 行の値は行の位置を指定して取得するか、{@link View}を通してLogと同じgetterで取得します。
+ */
+public final class LogTable {
+    private int size;
+    private int[] taskCodes;
+    private int[] changeUserCodes;
+    private int[] statuses;
+    private int[] changeDates;
+
+    public LogTable() {
+        this(16);
+    }
+
+    /**
+     * 指定した行数を格納できるLogTableを作成します。
+     *
+     * @param capacity 最初に確保する行数
+     */
+    public LogTable(int capacity) {
+        this(0, new int[capacity], new int[capacity], new int[capacity], new int[capacity]);
+    }
+
+    /**
+     * 列の配列をそのまま使うLogTableを作成します。配列はコピーしません。
+     */
+    LogTable(int size, int[] taskCodes, int[] changeUserCodes, int[] statuses, int[] changeDates) {
+        this.size = size;
+        this.taskCodes = taskCodes;
+        this.changeUserCodes = changeUserCodes;
+        this.statuses = statuses;
+        this.changeDates = changeDates;
+    }
+
+    /**
+     * ログを末尾に追加します。
+     *
+     * @param log 追加するログ
+     */
+    public void add(Log log) {
+        add(log.getTaskCode(), log.getChangeUserCode(), log.getStatus(), (int) log.getChangeDate().toEpochDay());
+    }
+
+    /**
+     * ログの値を末尾に追加します。
+     *
+     * @param taskCode       タスクコード
+     * @param changeUserCode 変更したユーザーのコード
+     * @param status         変更後のステータス
+     * @param changeEpochDay 変更日のエポック日数
+     */
+    public void add(int taskCode, int changeUserCode, int status, int changeEpochDay) {
+        if (size == taskCodes.length) {
+            int capacity = Math.max(16, size * 2);
+            taskCodes = Arrays.copyOf(taskCodes, capacity);
+            changeUserCodes = Arrays.copyOf(changeUserCodes, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            changeDates = Arrays.copyOf(changeDates, capacity);
+        }
+        taskCodes[size] = taskCode;
+        changeUserCodes[size] = changeUserCode;
+        statuses[size] = status;
+        changeDates[size] = changeEpochDay;
+        size++;
+    }
+
+    /**
+     * 別のLogTableの全ての行を末尾に追加します。
+     *
+     * @param other 追加する行を持つLogTable
+     */
+    public void addAll(LogTable other) {
+        int required = size + other.size;
+        if (required > taskCodes.length) {
+            int capacity = Math.max(required, taskCodes.length * 2);
+            taskCodes = Arrays.copyOf(taskCodes, capacity);
+            changeUserCodes = Arrays.copyOf(changeUserCodes, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            changeDates = Arrays.copyOf(changeDates, capacity);
+        }
+        System.arraycopy(other.taskCodes, 0, taskCodes, size, other.size);
+        System.arraycopy(other.changeUserCodes, 0, changeUserCodes, size, other.size);
+        System.arraycopy(other.statuses, 0, statuses, size, other.size);
+        System.arraycopy(other.changeDates, 0, changeDates, size, other.size);
+        size = required;
+    }
+
+    /**
+     * 行数を返します。
+     *
+     * @return 行数
+     */
+    public int size() {
+        return size;
+    }
+
+    public int taskCode(int row) {
+        return taskCodes[checkRow(row)];
+    }
+
+    public int changeUserCode(int row) {
+        return changeUserCodes[checkRow(row)];
+    }
+
+    public int status(int row) {
+        return statuses[checkRow(row)];
+    }
+
+    /**
+     * 変更日をエポック日数で返します。LocalDateを作らずに日付を比較するときに使います。
+     *
+     * @param row 行の位置(0始まり)
+     * @return 変更日のエポック日数
+     */
+    public int changeEpochDay(int row) {
+        return changeDates[checkRow(row)];
+    }
+
+    public LocalDate changeDate(int row) {
+        return LocalDate.ofEpochDay(changeEpochDay(row));
+    }
+
+    /**
+     * 指定した行のLogを作成します。
+     *
+     * @param row 行の位置(0始まり)
+     * @return 作成したLog
+     */
+    public Log get(int row) {
+        // Log(int taskCode, int changeUserCode, int status, LocalDate changeDate)
+        return new Log(taskCode(row), changeUserCode(row), status(row), changeDate(row));
+    }
+
+    /**
+     * 全ての行のLogを作成します。
+     *
+     * @return ファイルの順に並んだLogのリスト
+     */
+    public List<Log> toList() {
+        List<Log> logs = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            logs.add(get(row));
+        }
+        return logs;
+    }
+
+    /**
+     * 条件に一致する行だけを持つLogTableを作成します。
+     * 条件には行の位置が渡されるので、{@link #status(int)}などで値を取り出して判定してください。
+     *
+     * @param predicate 行の位置を受け取り、残す場合にtrueを返す条件
+     * @return 一致した行を元の順に並べたLogTable
+     */
+    public LogTable filter(IntPredicate predicate) {
+        LogTable filtered = new LogTable();
+        for (int row = 0; row < size; row++) {
+            if (predicate.test(row)) {
+                filtered.add(taskCodes[row], changeUserCodes[row], statuses[row], changeDates[row]);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * 条件に一致する行数を数えます。
+     *
+     * @param predicate 行の位置を受け取り、数える場合にtrueを返す条件
+     * @return 一致した行数
+     */
+    public int count(IntPredicate predicate) {
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (predicate.test(row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * ステータスごとの行数を数えます。
+     *
+     * @return ステータスを添字にした行数の配列。長さは最大のステータス+1
+     */
+    public int[] countByStatus() {
+        int[] counts = new int[0];
+        for (int row = 0; row < size; row++) {
+            int status = statuses[row];
+            if (status >= counts.length) {
+                counts = Arrays.copyOf(counts, status + 1);
+            }
+            counts[status]++;
+        }
+        return counts;
+    }
+
+    /**
+     * 全ての行を先頭から順に{@link View}として渡します。
+     * 渡すViewは同じオブジェクトを次の行に移動して使い回すので、保持する場合は{@link View#toLog()}を使ってください。
+     *
+     * @param action 各行に行う処理
+     */
+    public void forEach(Consumer<? super View> action) {
+        View view = new View();
+        for (int row = 0; row < size; row++) {
+            action.accept(view.moveTo(row));
+        }
+    }
+
+    /**
+     * 行を指していないViewを作成します。{@link View#moveTo(int)}で行に移動してから使います。
+     *
+     * @return 作成したView
+     */
+    public View view() {
+        return new View();
+    }
+
+    int[] taskCodes() {
+        return taskCodes;
+    }
+
+    int[] changeUserCodes() {
+        return changeUserCodes;
+    }
+
+    int[] statuses() {
+        return statuses;
+    }
+
+    int[] changeDates() {
+        return changeDates;
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+        return row;
+    }
+
+    /**
+     * LogTableの1行をLogと同じgetterで読み取るためのオブジェクトです。
+     * 値はgetterを呼び出したときにLogTableから取り出します。
+     */
+    public final class View {
+        private int row = -1;
+
+        private View() {
+        }
+
+        /**
+         * 指定した行に移動します。
+         *
+         * @param row 行の位置(0始まり)
+         * @return このView
+         */
+        public View moveTo(int row) {
+            this.row = checkRow(row);
+            return this;
+        }
+
+        public int getTaskCode() {
+            return taskCodes[row];
+        }
+
+        public int getChangeUserCode() {
+            return changeUserCodes[row];
+        }
+
+        public int getStatus() {
+            return statuses[row];
+        }
+
+        public LocalDate getChangeDate() {
+            return LocalDate.ofEpochDay(changeDates[row]);
+        }
+
+        /**
+         * 現在の行のLogを作成します。
+         *
+         * @return 作成したLog
+         */
+        public Log toLog() {
+            return get(row);
+        }
+    }
+}
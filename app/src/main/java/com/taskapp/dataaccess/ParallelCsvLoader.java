@@ -0,0 +1,207 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * CSVファイルを改行の位置で複数の範囲に分け、ForkJoinPoolで並列に読み込みます。
+ * 各範囲の読み込み結果はファイルの順に並べて返すので、順番に読み込んだ場合と同じ結果になります。
+ * 並列数はシステムプロパティtaskapp.loader.parallelismで変更できます。既定値はCPUのコア数です。
+ * 読み込みのたびにスレッドを作らないよう、ForkJoinPoolは並列数ごとに1つ作って使い回します。
+ * 並列数が共通プールと同じ場合は共通プールを使います。
+ */
+final class ParallelCsvLoader {
+    /** これより小さい範囲には分けない */
+    private static final long MIN_CHUNK_BYTES = 1024 * 1024;
+
+    /** 1つの範囲をメモリに読み込むため、これより大きい範囲には分けない */
+    private static final long MAX_CHUNK_BYTES = 64 * 1024 * 1024;
+
+    /** 改行を探すときに一度に読み込むバイト数 */
+    private static final int SCAN_BYTES = 8 * 1024;
+
+    /** 並列数をキーにした、読み込みに使うForkJoinPool。最初に使うときに作成する */
+    private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private ParallelCsvLoader() {
+    }
+
+    /**
+     * 1つの範囲を読み込む処理です。
+     *
+     * @param <R> 読み込み結果の型
+     */
+    @FunctionalInterface
+    interface ChunkParser<R> {
+        /**
+         * 範囲を読み込みます。
+         *
+         * @param csv 範囲の最初の行の前を指しているCsvTokenizer。タイトル行は読み飛ばしてある
+         * @return 範囲の読み込み結果
+         * @throws IOException 読み込みに失敗した場合
+         */
+        R parse(CsvTokenizer csv) throws IOException;
+    }
+
+    /**
+     * 設定された並列数を返します。
+     *
+     * @return システムプロパティtaskapp.loader.parallelismの値。指定がなければCPUのコア数
+     */
+    static int parallelism() {
+        return Math.max(1, Integer.getInteger("taskapp.loader.parallelism",
+                Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * CSVファイルを設定された並列数で読み込みます。
+     *
+     * @see #load(String, int, ChunkParser)
+     */
+    static <R> List<R> load(String filePath, ChunkParser<R> parser) throws IOException {
+        return load(filePath, parallelism(), parser);
+    }
+
+    /**
+     * CSVファイルを範囲に分けて並列に読み込みます。
+     * ファイルが小さいか並列数が1の場合は、ファイル全体を1つの範囲として読み込みます。
+     *
+     * @param <R>         範囲ごとの読み込み結果の型
+     * @param filePath    CSVファイルのパス
+     * @param parallelism 並列数
+     * @param parser      1つの範囲を読み込む処理
+     * @return ファイルの順に並んだ範囲ごとの読み込み結果
+     * @throws IOException 読み込みに失敗した場合
+     */
+    static <R> List<R> load(String filePath, int parallelism, ChunkParser<R> parser) throws IOException {
+        long[] bounds = split(filePath, parallelism);
+        List<R> results = new ArrayList<>(bounds.length - 1);
+        if (bounds.length <= 2) {
+            try (CsvTokenizer csv = CsvTokenizer.open(filePath)) {
+                // タイトル行を読み飛ばす
+                csv.nextRow();
+                results.add(parser.parse(csv));
+            }
+            return results;
+        }
+
+        List<Callable<R>> chunks = new ArrayList<>(bounds.length - 1);
+        for (int i = 0; i < bounds.length - 1; i++) {
+            boolean first = i == 0;
+            long start = bounds[i];
+            long end = bounds[i + 1];
+            chunks.add(() -> parseChunk(filePath, start, end, first, parser));
+        }
+        try {
+            for (Future<R> chunk : poolFor(parallelism).invokeAll(chunks)) {
+                results.add(chunk.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * 指定した並列数で読み込むForkJoinPoolを返します。
+     * ForkJoinPoolのスレッドはデーモンスレッドなので、使い回すプールを終了しなくてもアプリケーションは終了できます。
+     *
+     * @param parallelism 並列数
+     * @return 並列数が共通プールと同じなら共通プール。違えばその並列数のプール
+     */
+    static ForkJoinPool poolFor(int parallelism) {
+        if (parallelism == ForkJoinPool.getCommonPoolParallelism()) {
+            return ForkJoinPool.commonPool();
+        }
+        return POOLS.computeIfAbsent(parallelism, p -> new ForkJoinPool(p));
+    }
+
+    /**
+     * ファイルを改行の直後の位置で範囲に分けます。
+     *
+     * @return 各範囲の開始位置とファイルの終わりの位置。範囲がn個なら長さはn+1
+     */
+    private static long[] split(String filePath, int parallelism) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long count = Math.max(parallelism, (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+            count = Math.min(count, Math.max(1, size / MIN_CHUNK_BYTES));
+            if (parallelism <= 1 && size <= MAX_CHUNK_BYTES) {
+                count = 1;
+            }
+            List<Long> bounds = new ArrayList<>();
+            bounds.add(0L);
+            for (long i = 1; i < count; i++) {
+                long boundary = nextLineStart(channel, size * i / count);
+                // 1行が長く次の範囲の位置を越えた場合は範囲をまとめる
+                if (boundary > bounds.get(bounds.size() - 1) && boundary < size) {
+                    bounds.add(boundary);
+                }
+            }
+            bounds.add(size);
+            return bounds.stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+
+    /**
+     * 指定した位置以降で最初の改行の直後の位置を探します。
+     *
+     * @return 改行の直後の位置。改行がなければファイルの終わりの位置
+     */
+    private static long nextLineStart(FileChannel channel, long from) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BYTES);
+        long position = from;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * ファイルの1つの範囲を読み込みます。
+     */
+    private static <R> R parseChunk(String filePath, long start, long end, boolean first, ChunkParser<R> parser)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        }
+        CsvTokenizer.countFileRead(buffer.position());
+        CsvTokenizer csv = CsvTokenizer.of(buffer.array(), buffer.position(), start);
+        if (first) {
+            // タイトル行を読み飛ばす
+            csv.nextRow();
+        }
+        return parser.parse(csv);
+    }
+}
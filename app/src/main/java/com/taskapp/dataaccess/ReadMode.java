@@ -0,0 +1,31 @@
+package com.taskapp.dataaccess;
+
+/**
+ * CSVファイルの読み込み方法です。
+ */
+public enum ReadMode {
+    /** FileInputStreamからバッファに読み込む */
+    STREAM,
+
+    /**
+     * ファイル全体をメモリにマッピングして読み込む。
+     * 読み込むバイト数が減るため、大きなファイルを一覧するときに速くなります。
+     */
+    MAPPED,
+
+    /**
+     * CSVファイルの隣に保存したバイナリのスナップショットから一覧を読み込む。
+     * スナップショットがCSVファイルより古ければ、CSVファイルをSTREAMで読み込んでスナップショットを作り直します。
+     * 一覧以外の読み込みはSTREAMと同じです。
+     */
+    SNAPSHOT,
+
+    /**
+     * 一覧するときにCSVファイルを改行の位置で分け、複数のスレッドで並列に読み込む。
+     * 結果はファイルの順に並べるので、STREAMで読み込んだ場合と同じになります。
+     * 一覧以外の読み込みはSTREAMと同じです。
+     *
+     * @see ParallelCsvLoader
+     */
+    PARALLEL
+}
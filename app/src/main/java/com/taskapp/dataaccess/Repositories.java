@@ -0,0 +1,178 @@
+package com.taskapp.dataaccess;
+
+import java.sql.SQLException;
+
+import com.taskapp.dataaccess.jdbc.JdbcLogRepository;
+import com.taskapp.dataaccess.jdbc.JdbcStore;
+import com.taskapp.dataaccess.jdbc.JdbcTaskRepository;
+import com.taskapp.dataaccess.jdbc.JdbcUserRepository;
+import com.taskapp.exception.AppException;
+
+/**
+ * タスク、ユーザー、ログの保存先の組み合わせです。
+ * CSVファイルに保存する{@link #csv()}と、組み込みデータベースに保存する{@link #jdbc(String, Repositories)}があります。
+ * アプリケーションが使う保存先は起動時にシステムプロパティtaskapp.storeで選び、{@link #shared()}で取得します。
+ * <ul>
+ * <li>-Dtaskapp.store=csv(指定しない場合) … app/src/main/resourcesのCSVファイル</li>
+ * <li>-Dtaskapp.store=h2 … taskapp.store.urlのデータベース。指定しなければ作業ディレクトリのjdbc:h2:./taskapp。
+ * 初めて使うときはCSVファイルの内容を読み込む</li>
+ * </ul>
+ */
+public final class Repositories implements AutoCloseable {
+    /** 保存先を選ぶシステムプロパティ */
+    public static final String STORE_PROPERTY = "taskapp.store";
+
+    /** 組み込みデータベースのJDBC URLを指定するシステムプロパティ */
+    public static final String URL_PROPERTY = "taskapp.store.url";
+
+    /** CSVファイルの保存先では、ログをこの件数までまとめて書き込む */
+    private static final int LOG_BATCH_SIZE = 256;
+
+    /** CSVファイルの保存先では、ログを保存してからこの時間(ミリ秒)以内に書き込む */
+    private static final long LOG_MAX_DELAY_MILLIS = 1000;
+
+    /**
+     * ソースのディレクトリに置くとビルドの出力にコピーされ、ビルドの出力先に置くとビルドのたびに消えるため、
+     * どちらでもない作業ディレクトリに置く
+     */
+    private static final String DEFAULT_URL = "jdbc:h2:./taskapp";
+
+    private static Repositories shared;
+
+    private final TaskRepository tasks;
+
+    private final UserRepository users;
+
+    private final LogRepository logs;
+
+    /** 使い終わったときに閉じるもの */
+    private final AutoCloseable resource;
+
+    private Repositories(TaskRepository tasks, UserRepository users, LogRepository logs, AutoCloseable resource) {
+        this.tasks = tasks;
+        this.users = users;
+        this.logs = logs;
+        this.resource = resource;
+    }
+
+    /**
+     * システムプロパティで選んだ保存先を取得します。最初に呼び出したときに作成し、以降は同じものを返します。
+     *
+     * @return アプリケーション全体で使う保存先
+     * @throws IllegalStateException データベースに接続できない場合か、taskapp.storeの値が正しくない場合
+     */
+    public static synchronized Repositories shared() {
+        if (shared == null) {
+            String store = System.getProperty(STORE_PROPERTY, "csv");
+            switch (store) {
+                case "csv":
+                    shared = csv();
+                    break;
+                case "h2":
+                    // CSVファイルは読み込みにだけ使うので、読み込んだら閉じる
+                    try (Repositories source = csv()) {
+                        shared = jdbc(System.getProperty(URL_PROPERTY, DEFAULT_URL), source);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException(STORE_PROPERTY + "にはcsvかh2を指定してください: " + store);
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * {@link #shared()}で作成した保存先を、アプリケーションの終了時に閉じるようにします。
+     * まとめて書き込むためにためているログは、終了時に書き込まれます。
+     */
+    public static void closeOnExit() {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            synchronized (Repositories.class) {
+                if (shared != null) {
+                    shared.close();
+                }
+            }
+        }, "repositories-closer"));
+    }
+
+    /**
+     * app/src/main/resourcesのCSVファイルに保存する保存先を作成します。
+     * ログは1件ごとにファイルを開いて書き込まず、件数か経過時間のどちらかが上限に達したときにまとめて書き込みます。
+     * ためているログは{@link LogRepository#flush()}か{@link #close()}で書き込まれます。
+     *
+     * @return CSVファイルの保存先
+     */
+    public static Repositories csv() {
+        LogDataAccess logDataAccess = new LogDataAccess(LogDataAccess.DEFAULT_FILE_PATH, LOG_BATCH_SIZE,
+                LOG_MAX_DELAY_MILLIS, false);
+        return new Repositories(new TaskDataAccess(), new UserDataAccess(), logDataAccess, logDataAccess::close);
+    }
+
+    /**
+     * 指定したCSVファイルに保存する保存先を作成します。
+     * ログは{@link #csv()}と同じくまとめて書き込みます。
+     *
+     * @param usersPath users.csvのパス
+     * @param tasksPath tasks.csvのパス
+     * @param logsPath  logs.csvのパス
+     * @return CSVファイルの保存先
+     */
+    public static Repositories csv(String usersPath, String tasksPath, String logsPath) {
+        UserDataAccess userDataAccess = new UserDataAccess(usersPath);
+        LogDataAccess logDataAccess = new LogDataAccess(logsPath, LOG_BATCH_SIZE, LOG_MAX_DELAY_MILLIS, false);
+        return new Repositories(new TaskDataAccess(tasksPath, userDataAccess), userDataAccess, logDataAccess,
+                logDataAccess::close);
+    }
+
+    /**
+     * 組み込みデータベースに保存する保存先を作成します。
+     * データベースにユーザーが1件もなければ、指定した保存先の内容を全て読み込みます。
+     *
+     * @param url    データベースのJDBC URL
+     * @param source データベースが空の場合に読み込む保存先。読み込まない場合はnull
+     * @return データベースの保存先
+     * @throws IllegalStateException データベースに接続できない場合か、読み込みに失敗した場合
+     */
+    public static Repositories jdbc(String url, Repositories source) {
+        JdbcStore store;
+        try {
+            store = new JdbcStore(url);
+        } catch (SQLException e) {
+            throw new IllegalStateException("データベースに接続できません: " + url, e);
+        }
+        try {
+            if (source != null && store.isEmpty()) {
+                store.importFrom(source.users(), source.tasks(), source.logs());
+            }
+        } catch (AppException | RuntimeException e) {
+            store.close();
+            throw new IllegalStateException("データベースに読み込めません: " + url, e);
+        }
+        return new Repositories(new JdbcTaskRepository(store), new JdbcUserRepository(store),
+                new JdbcLogRepository(store), store);
+    }
+
+    public TaskRepository tasks() {
+        return tasks;
+    }
+
+    public UserRepository users() {
+        return users;
+    }
+
+    public LogRepository logs() {
+        return logs;
+    }
+
+    /**
+     * まだ書き込んでいないログを書き込み、データベースへの接続やファイルを閉じます。
+     */
+    @Override
+    public void close() {
+        try {
+            resource.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
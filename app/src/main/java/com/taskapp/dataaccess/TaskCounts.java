@@ -0,0 +1,181 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ステータスごと、担当ユーザーごとのタスクの件数です。
+ * 件数はCSVファイルの隣のファイル(tasks.csv.countsなど)に保存し、
+ * 保存したときのCSVファイルと上書き用ファイルのサイズと更新日時が一致する間だけ使います。
+ *
+ * <pre>
+ * int  マジックナンバー
+ * int  バージョン
+ * long[4] 保存したときのCSVファイルのサイズと更新日時(ナノ秒)、上書き用ファイルのサイズと更新日時(ナノ秒)
+ * int  ステータスの種類の数
+ * (int ステータス, int 件数) × ステータスの種類の数
+ * int  担当ユーザーの数
+ * (int ユーザーコード, int 件数) × 担当ユーザーの数
+ * </pre>
+ */
+final class TaskCounts {
+    private static final int MAGIC = 0x54434E54;
+    private static final int VERSION = 1;
+
+    private final Map<Integer, Integer> byStatus = new HashMap<>();
+
+    private final Map<Integer, Integer> byRepUser = new HashMap<>();
+
+    /**
+     * 1件分の件数を増減します。件数が0になったステータスとユーザーは取り除きます。
+     *
+     * @param status      タスクのステータス
+     * @param repUserCode 担当ユーザーのコード
+     * @param delta       増やす件数。減らす場合は負の値
+     */
+    void add(int status, int repUserCode, int delta) {
+        add(byStatus, status, delta);
+        add(byRepUser, repUserCode, delta);
+    }
+
+    /**
+     * ステータスごとの件数を返します。
+     *
+     * @return ステータスをキーにした件数。ステータスの順に並ぶ
+     */
+    Map<Integer, Integer> byStatus() {
+        return new TreeMap<>(byStatus);
+    }
+
+    /**
+     * 担当ユーザーごとの件数を返します。
+     *
+     * @return 担当ユーザーのコードをキーにした件数。コードの順に並ぶ
+     */
+    Map<Integer, Integer> byRepUser() {
+        return new TreeMap<>(byRepUser);
+    }
+
+    /**
+     * 保存した件数を読み込みます。
+     *
+     * @param csvPath CSVファイルのパス
+     * @param source  現在のCSVファイルと上書き用ファイルの状態
+     * @return 読み込んだ件数。保存した件数がない、壊れている、またはファイルが変更されていればnull
+     * @see #sourceOf(String, String)
+     */
+    static TaskCounts read(String csvPath, long[] source) {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(pathOf(csvPath))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            long[] saved = new long[source.length];
+            for (int i = 0; i < saved.length; i++) {
+                saved[i] = in.readLong();
+            }
+            if (!Arrays.equals(saved, source)) {
+                return null;
+            }
+            TaskCounts counts = new TaskCounts();
+            readEntries(in, counts.byStatus);
+            readEntries(in, counts.byRepUser);
+            return counts;
+        } catch (IOException e) {
+            // 保存した件数がないか壊れていれば数え直す
+            return null;
+        }
+    }
+
+    /**
+     * 件数を保存します。書き込み途中で中断しても元のファイルが残るように、一時ファイルから置き換えます。
+     *
+     * @param csvPath CSVファイルのパス
+     * @param source  件数を数えたときのCSVファイルと上書き用ファイルの状態
+     */
+    void write(String csvPath, long[] source) {
+        Path target = Paths.get(pathOf(csvPath));
+        Path temp;
+        try {
+            temp = ColumnSnapshot.createTempFile(target);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (long value : source) {
+                out.writeLong(value);
+            }
+            writeEntries(out, byStatus);
+            writeEntries(out, byRepUser);
+        } catch (IOException e) {
+            e.printStackTrace();
+            ColumnSnapshot.deleteTempFile(temp);
+            return;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            ColumnSnapshot.deleteTempFile(temp);
+        }
+    }
+
+    /**
+     * CSVファイルと上書き用ファイルの現在の状態を取得します。
+     *
+     * @param csvPath     CSVファイルのパス
+     * @param overlayPath 上書き用ファイルのパス
+     * @return サイズと更新日時(ナノ秒)を並べた配列。ファイルがなければ-1
+     */
+    static long[] sourceOf(String csvPath, String overlayPath) {
+        long[] csv = ColumnSnapshot.sourceOf(csvPath);
+        long[] overlay = ColumnSnapshot.sourceOf(overlayPath);
+        return new long[] {
+                csv != null ? csv[0] : -1, csv != null ? csv[1] : -1,
+                overlay != null ? overlay[0] : -1, overlay != null ? overlay[1] : -1 };
+    }
+
+    private static void add(Map<Integer, Integer> counts, int key, int delta) {
+        int count = counts.getOrDefault(key, 0) + delta;
+        if (count == 0) {
+            counts.remove(key);
+        } else {
+            counts.put(key, count);
+        }
+    }
+
+    private static String pathOf(String csvPath) {
+        return csvPath + ".counts";
+    }
+
+    private static void readEntries(DataInputStream in, Map<Integer, Integer> counts) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            counts.put(in.readInt(), in.readInt());
+        }
+    }
+
+    private static void writeEntries(DataOutputStream out, Map<Integer, Integer> counts) throws IOException {
+        out.writeInt(counts.size());
+        for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+}
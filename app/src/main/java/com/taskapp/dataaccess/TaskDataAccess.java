@@ -1,26 +1,106 @@
 package com.taskapp.dataaccess;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.taskapp.exception.AppException;
+import com.taskapp.metrics.LatencyHistogram;
+import com.taskapp.metrics.Metrics;
 import com.taskapp.model.Task;
 import com.taskapp.model.User;
 
-public class TaskDataAccess {
+public class TaskDataAccess implements TaskRepository {
+    private static final LatencyHistogram FIND_ALL_TIME = Metrics.histogram("TaskDataAccess.findAll");
+    private static final LatencyHistogram FIND_PAGE_TIME = Metrics.histogram("TaskDataAccess.findPage");
+    private static final LatencyHistogram COUNT_BY_STATUS_TIME = Metrics.histogram("TaskDataAccess.countByStatus");
+    private static final LatencyHistogram COUNT_BY_REP_USER_TIME = Metrics.histogram("TaskDataAccess.countByRepUser");
+    private static final LatencyHistogram SAVE_TIME = Metrics.histogram("TaskDataAccess.save");
+    private static final LatencyHistogram SAVE_ALL_TIME = Metrics.histogram("TaskDataAccess.saveAll");
+    private static final LatencyHistogram FIND_BY_CODE_TIME = Metrics.histogram("TaskDataAccess.findByCode");
+    private static final LatencyHistogram FIND_ALL_BY_CODES_TIME = Metrics.histogram("TaskDataAccess.findAllByCodes");
+    private static final LatencyHistogram UPDATE_TIME = Metrics.histogram("TaskDataAccess.update");
+    private static final LatencyHistogram UPDATE_ALL_TIME = Metrics.histogram("TaskDataAccess.updateAll");
+    private static final LatencyHistogram COMPACT_TIME = Metrics.histogram("TaskDataAccess.compact");
+
+    /** 上書き用ファイルの行数がこの値に達したらtasks.csvに書き戻す */
+    private static final int COMPACTION_THRESHOLD = 64;
+
+    /** 上書き用ファイルがこのサイズ(バイト)に達したら書き戻す。世代の印の空行が増え続けないようにする */
+    private static final long OVERLAY_SIZE_THRESHOLD = 64 * 1024;
 
     private final String filePath;
 
+    /**
+     * 更新を追記していくファイル。ここにある行はtasks.csvの同じコードの行より優先する。
+     * WriteMode.WALでは全ての更新を、IN_PLACEでは行の長さが変わる更新だけを追記する。
+     * IN_PLACEでtasks.csvをその場で書き換えたときは、別のプロセスが変更に気付けるよう世代の印として空行を追記する
+     */
+    private final String overlayPath;
+
     private final UserDataAccess userDataAccess;
 
+    private final ReadMode readMode;
+
+    private final WriteMode writeMode;
+
+    /** 上書き用ファイルを反映した行データ。同じファイルを読み込む全てのTaskDataAccessで共有する */
+    private final EntityCache<TaskRow> cache;
+
+    /** タスクコードをキーにしたtasks.csvの行データ。findByCodeで初めて必要になったときに作成する */
+    private Map<Integer, TaskRow> index;
+
+    /** タスクコードをキーにした上書き用ファイルの行データ */
+    private Map<Integer, TaskRow> overlay;
+
+    /** 上書き用ファイルの行数 */
+    private int overlayRowCount;
+
+    /** ステータスごと、担当ユーザーごとの件数。保存や更新のたびに増減する */
+    private TaskCounts counts;
+
+    /** countsが表すCSVファイルと上書き用ファイルの状態 */
+    private long[] countsSource;
+
+    /** indexを作成したときのCSVファイルと上書き用ファイルの状態 */
+    private FileStamp indexStamp;
+    private FileStamp indexOverlayStamp;
+
+    /** overlayを読み込んだときの上書き用ファイルの状態 */
+    private FileStamp overlayStamp;
+
+    /**
+     * 索引や上書き用ファイルの読み書きを1スレッドずつにするロック。
+     * synchronizedの中でファイルを読み書きすると仮想スレッドがキャリアスレッドを手放せないため、ReentrantLockを使う
+     */
+    private final ReentrantLock monitor = new ReentrantLock();
+
     public TaskDataAccess() {
         filePath = "app/src/main/resources/tasks.csv";
+        overlayPath = filePath + ".overlay";
         userDataAccess = new UserDataAccess();
+        readMode = ReadMode.STREAM;
+        writeMode = WriteMode.IN_PLACE;
+        cache = EntityCache.shared(filePath, overlayPath);
     }
 
     /**
@@ -30,121 +110,838 @@ public class TaskDataAccess {
      * @param userDataAccess
      */
     public TaskDataAccess(String filePath, UserDataAccess userDataAccess) {
+        this(filePath, userDataAccess, ReadMode.STREAM);
+    }
+
+    /**
+     * 読み込み方法を指定してTaskDataAccessを作成します。
+     * 
+     * @param filePath       タスクを保存するCSVファイルのパス
+     * @param userDataAccess 担当ユーザーの取得に使うUserDataAccess
+     * @param readMode       CSVファイルの読み込み方法
+     */
+    public TaskDataAccess(String filePath, UserDataAccess userDataAccess, ReadMode readMode) {
+        this(filePath, userDataAccess, readMode, WriteMode.IN_PLACE);
+    }
+
+    /**
+     * 読み込み方法と更新の書き込み方法を指定してTaskDataAccessを作成します。
+     * 
+     * @param filePath       タスクを保存するCSVファイルのパス
+     * @param userDataAccess 担当ユーザーの取得に使うUserDataAccess
+     * @param readMode       CSVファイルの読み込み方法
+     * @param writeMode      更新の書き込み方法
+     */
+    public TaskDataAccess(String filePath, UserDataAccess userDataAccess, ReadMode readMode, WriteMode writeMode) {
         this.filePath = filePath;
+        this.overlayPath = filePath + ".overlay";
         this.userDataAccess = userDataAccess;
+        this.readMode = readMode;
+        this.writeMode = writeMode;
+        this.cache = EntityCache.shared(filePath, overlayPath);
     }
 
     /**
      * CSVから全てのタスクデータを取得します。
-     *
-     * @see com.taskapp.dataaccess.UserDataAccess#findByCode(int)
+     * 担当ユーザーはCSVを読み終えてからまとめて取得します。
+     * CSVファイルが変更されていなければ、前回読み込んだ行をキャッシュから使います。
+     * 
+     * @see com.taskapp.dataaccess.UserDataAccess#findAllByCodes(Set)
      * @return タスクのリスト
      */
     public List<Task> findAll() throws AppException {
-        List<Task> tasks = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            // タイトル行を読み飛ばす
-            reader.readLine();
-            while ((line = reader.readLine()) != null) {
-                String[] values = line.split(",");
+        long startNanos = System.nanoTime();
+        try {
+            List<Task> tasks = new ArrayList<>();
+            List<TaskRow> rows = cachedRows();
+            Set<Integer> repUserCodes = new HashSet<>();
+            for (TaskRow row : rows) {
+                repUserCodes.add(row.repUserCode);
+            }
 
-                // CSVに間違いがあったらスキップする
-                if (values.length != 4) {
-                    continue;
+            // 担当ユーザーを1回の読み込みでまとめて取得する
+            Map<Integer, User> repUsers = userDataAccess.findAllByCodes(repUserCodes);
+            for (TaskRow row : rows) {
+                // Taskコンストラクタ(int code, String name, int status, User repUser)
+                tasks.add(new Task(row.code, row.name, row.status, repUsers.get(row.repUserCode)));
+            }
+            return tasks;
+        } finally {
+            FIND_ALL_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 条件に一致するタスクを、ファイルの順に指定した範囲だけ取得します。
+     * 条件はCSVの数値の列のまま判定するので、一致しない行のタスク名やTaskオブジェクトは作りません。
+     * 必要な件数が見つかった時点で読み込みをやめるため、先頭のページはファイルの大きさに関わらず速く取得できます。
+     * 
+     * @param status      取得するタスクのステータス。全てのステータスを取得する場合は{@link #ANY}
+     * @param repUserCode 取得するタスクの担当ユーザーのコード。全てのユーザーを取得する場合は{@link #ANY}
+     * @param offset      読み飛ばす一致したタスクの件数
+     * @param limit       取得する最大件数
+     * @return 条件に一致したタスクのリスト
+     */
+    public List<Task> findPage(int status, int repUserCode, int offset, int limit) throws AppException {
+        long startNanos = System.nanoTime();
+        try {
+            if (limit <= 0) {
+                return new ArrayList<>();
+            }
+            List<TaskRow> page = new ArrayList<>();
+            List<TaskRow> cached = cache.getAll();
+            if (cached != null) {
+                // 全ての行がキャッシュにあればファイルは読まない
+                int matched = 0;
+                for (TaskRow row : cached) {
+                    if (!matches(row.status, row.repUserCode, status, repUserCode) || matched++ < offset) {
+                        continue;
+                    }
+                    page.add(row);
+                    if (page.size() == limit) {
+                        break;
+                    }
                 }
+            } else {
+                page = scanPage(status, repUserCode, offset, limit);
+            }
+
+            Set<Integer> repUserCodes = new HashSet<>();
+            for (TaskRow row : page) {
+                repUserCodes.add(row.repUserCode);
+            }
+            Map<Integer, User> repUsers = userDataAccess.findAllByCodes(repUserCodes);
+            List<Task> tasks = new ArrayList<>(page.size());
+            for (TaskRow row : page) {
                 // Taskコンストラクタ(int code, String name, int status, User repUser)
-                int code = Integer.parseInt(values[0]);
-                String name = values[1];
-                int status = Integer.parseInt(values[2]);
-                // User(int code, String name, String email, String password)
-                User repUser = userDataAccess.findByCode(Integer.parseInt(values[3]));
-                Task task = new Task(code, name, status, repUser);
-                tasks.add(task);
+                tasks.add(new Task(row.code, row.name, row.status, repUsers.get(row.repUserCode)));
+            }
+            return tasks;
+        } finally {
+            FIND_PAGE_TIME.recordSince(startNanos);
+        }
+    }
 
+    /**
+     * tasks.csvを先頭から読み込み、条件に一致する行を指定した範囲だけ取得します。
+     * 上書き用ファイルにある行は、上書き後の内容で条件を判定します。
+     * 
+     * @see #findPage(int, int, int, int)
+     * @return ファイルの順に並んだ一致した行データ
+     */
+    @SuppressWarnings("try")
+    private List<TaskRow> scanPage(int status, int repUserCode, int offset, int limit) {
+        monitor.lock();
+        try {
+            try (FileLocks.Held lock = FileLocks.read(filePath)) {
+                Map<Integer, TaskRow> currentOverlay = loadOverlay();
+                List<TaskRow> page = new ArrayList<>();
+                int matched = 0;
+                try (CsvTokenizer csv = openCsv()) {
+                    // タイトル行を読み飛ばす
+                    csv.nextRow();
+                    while (csv.nextRow() && page.size() < limit) {
+                        // CSVに間違いがあったらスキップする
+                        if (csv.fieldCount() != 4) {
+                            continue;
+                        }
+                        TaskRow overlaid = currentOverlay.isEmpty() ? null : currentOverlay.get(csv.intField(0));
+                        boolean match = overlaid != null
+                                ? matches(overlaid.status, overlaid.repUserCode, status, repUserCode)
+                                : matches(csv.intField(2), csv.intField(3), status, repUserCode);
+                        if (!match || matched++ < offset) {
+                            continue;
+                        }
+                        page.add(overlaid != null ? overlaid : createRow(csv));
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                return page;
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+        } finally {
+            monitor.unlock();
         }
-        return tasks;
+    }
+
+    /**
+     * 行がfindPageの条件に一致するかどうかを判定します。
+     */
+    private static boolean matches(int rowStatus, int rowRepUserCode, int status, int repUserCode) {
+        return (status == ANY || rowStatus == status) && (repUserCode == ANY || rowRepUserCode == repUserCode);
+    }
+
+    /**
+     * ステータスごとのタスクの件数を取得します。
+     * 件数は保存や更新のたびに増減してファイルに保存しているので、CSVファイルは読み込みません。
+     * 保存した件数がないか、別の方法でCSVファイルが変更されていた場合だけ、全ての行を読み込んで数え直します。
+     * 件数は{@link #findAll()}で取得できるタスクを数えたものと同じです。
+     * 
+     * @return ステータスをキーにした件数。ステータスの順に並ぶ
+     */
+    public Map<Integer, Integer> countByStatus() {
+        long startNanos = System.nanoTime();
+        try {
+            return loadCounts().byStatus();
+        } finally {
+            COUNT_BY_STATUS_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 担当ユーザーごとのタスクの件数を取得します。
+     * 
+     * @see #countByStatus()
+     * @return 担当ユーザーのコードをキーにした件数。コードの順に並ぶ
+     */
+    public Map<Integer, Integer> countByRepUser() {
+        long startNanos = System.nanoTime();
+        try {
+            return loadCounts().byRepUser();
+        } finally {
+            COUNT_BY_REP_USER_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 現在のファイルの件数を取得します。保存した件数が使えなければ全ての行を数え直して保存します。
+     * 
+     * @return 件数
+     */
+    @SuppressWarnings("try")
+    private TaskCounts loadCounts() {
+        monitor.lock();
+        try {
+            try (FileLocks.Held lock = FileLocks.read(filePath)) {
+                TaskCounts current = currentCounts();
+                if (current != null) {
+                    return current;
+                }
+                long[] source = TaskCounts.sourceOf(filePath, overlayPath);
+                current = new TaskCounts();
+                for (TaskRow row : cachedRows()) {
+                    current.add(row.status, row.repUserCode, 1);
+                }
+                current.write(filePath, source);
+                counts = current;
+                countsSource = source;
+                return current;
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * 現在のファイルを表す件数を、数え直さずに取得できれば取得します。
+     * 
+     * @return 件数。保存した件数がないか、ファイルが変更されていればnull
+     */
+    private TaskCounts currentCounts() {
+        long[] source = TaskCounts.sourceOf(filePath, overlayPath);
+        if (counts == null || !Arrays.equals(source, countsSource)) {
+            counts = TaskCounts.read(filePath, source);
+            countsSource = source;
+        }
+        return counts;
+    }
+
+    /**
+     * 書き込みを反映した件数を、書き込み後のファイルの状態とともに保存します。
+     * 
+     * @param updated 書き込みを反映した件数
+     */
+    private void saveCounts(TaskCounts updated) {
+        long[] source = TaskCounts.sourceOf(filePath, overlayPath);
+        updated.write(filePath, source);
+        counts = updated;
+        countsSource = source;
     }
 
     /**
      * タスクをCSVに保存します。
+     * WriteMode.WALの場合は、ディスクに反映されるまで待ちます。
      * 
+     * @see #saveAll(Collection)
      * @param task 保存するタスク
      */
     public void save(Task task) {
-        // tasks.javaに新規追加
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath, true))) {
-            String line = createLine(task);
-            // 改行を追加
-            writer.newLine();
-            // データを1行分追加
-            writer.write(line);
+        long startNanos = System.nanoTime();
+        try {
+            saveAll(Collections.singletonList(task));
+        } finally {
+            SAVE_TIME.recordSince(startNanos);
+        }
+    }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * 複数のタスクをまとめてCSVに保存します。
+     * ファイルは1回だけ開き、全ての行を1つのバッファを通して順に追記します。
+     * WriteMode.WALの場合は、全ての行を書き込んだ後に1回だけディスクへの反映を待ちます。
+     * 
+     * @param tasks 保存するタスク。この順に追記する
+     */
+    @SuppressWarnings("try")
+    public void saveAll(Collection<Task> tasks) {
+        monitor.lock();
+        try {
+            long startNanos = System.nanoTime();
+            try {
+                if (tasks.isEmpty()) {
+                    return;
+                }
+                try (FileLocks.Held lock = FileLocks.write(filePath)) {
+                    // 上書き用ファイルに同じコードの行があると追記した行が隠れてしまうので先に書き戻す
+                    Map<Integer, TaskRow> currentOverlay = loadOverlay();
+                    for (Task task : tasks) {
+                        if (currentOverlay.containsKey(task.getCode())) {
+                            compact();
+                            break;
+                        }
+                    }
+                    TaskCounts currentCounts = currentCounts();
+                    // tasks.javaに新規追加
+                    try (FileOutputStream out = new FileOutputStream(filePath, true);
+                            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+                                    64 * 1024)) {
+                        for (Task task : tasks) {
+                            String line = createLine(task);
+                            // 改行を追加
+                            writer.newLine();
+                            // データを1行分追加
+                            writer.write(line);
+                        }
+
+                        if (writeMode == WriteMode.WAL) {
+                            writer.flush();
+                            out.getFD().sync();
+                        }
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        invalidateIndex();
+                        return;
+                    }
+                    if (currentCounts != null) {
+                        for (Task task : tasks) {
+                            currentCounts.add(task.getStatus(), task.getRepUser().getCode(), 1);
+                        }
+                        saveCounts(currentCounts);
+                    }
+                    invalidateIndex();
+                }
+            } finally {
+                SAVE_ALL_TIME.recordSince(startNanos);
+            }
+        } finally {
+            monitor.unlock();
         }
     }
 
     /**
      * コードを基にタスクデータを1件取得します。
+     * 同じコードの行が複数ある場合は後の行を優先します。
      * 
      * @param code 取得するタスクのコード
      * @return 取得したタスク
      */
     public Task findByCode(int code) throws AppException {
-        Task task = null;
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            // タイトル行を読み飛ばす
-            reader.readLine();
-            while ((line = reader.readLine()) != null) {
-                String[] values = line.split(",");
-                // Code,Name,Status,Rep_User_Code
-                int taskCode = Integer.parseInt(values[0]);
-                if (code != taskCode)continue;
+        long startNanos = System.nanoTime();
+        try {
+            TaskRow row = cache.get(code);
+            if (row == null) {
+                monitor.lock();
+                try {
+                    FileStamp[] stamp = cache.stamp();
+                    row = loadIndex().get(code);
+                    if (row == null) {
+                        return null;
+                    }
+                    row = overlay.getOrDefault(code, row);
+                    cache.put(code, row, stamp);
+                } finally {
+                    monitor.unlock();
+                }
+            }
+            User user = userDataAccess.findByCode(row.repUserCode);
+            // (int code, String name, int status, User repUser)
+            return new Task(row.code, row.name, row.status, user);
+        } finally {
+            FIND_BY_CODE_TIME.recordSince(startNanos);
+        }
+    }
 
-                String taskName = values[1];
-                int status = Integer.parseInt(values[2]);
-                int repUserCode = Integer.parseInt(values[3]);
-                User user = userDataAccess.findByCode(repUserCode);
-                // (int code, String name, int status, User repUser)
-                task = new Task(taskCode, taskName, status, user);
+    /**
+     * 複数のコードを基にタスクデータをまとめて取得します。
+     * 同じコードの行が複数ある場合は後の行を優先します。
+     * CSVファイルはタスクコードの索引を作るときに1回だけ読み込み、担当ユーザーは最後にまとめて取得します。
+     * 
+     * @see com.taskapp.dataaccess.UserDataAccess#findAllByCodes(Set)
+     * @param codes 取得するタスクのコード
+     * @return タスクコードをキーにした見つかったタスクのMap
+     */
+    public Map<Integer, Task> findAllByCodes(Set<Integer> codes) {
+        long startNanos = System.nanoTime();
+        try {
+            List<TaskRow> rows = new ArrayList<>(codes.size());
+            monitor.lock();
+            try {
+                Map<Integer, TaskRow> currentIndex = loadIndex();
+                for (Integer code : codes) {
+                    TaskRow row = currentIndex.get(code);
+                    if (row != null) {
+                        rows.add(overlay.getOrDefault(code, row));
+                    }
+                }
+            } finally {
+                monitor.unlock();
             }
+            return toTasks(rows);
+        } finally {
+            FIND_ALL_BY_CODES_TIME.recordSince(startNanos);
+        }
+    }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * タスクコードの索引を取得します。
+     * CSVファイルの更新日時かサイズが変わっていた場合は作り直します。
+     * 上書き用ファイルも変わっていれば読み込み直します。
+     * 
+     * @return タスクコードをキーにしたtasks.csvの行データ
+     */
+    @SuppressWarnings("try")
+    private Map<Integer, TaskRow> loadIndex() {
+        monitor.lock();
+        try {
+            try (FileLocks.Held lock = FileLocks.read(filePath)) {
+                FileStamp stamp = FileStamp.of(filePath);
+                loadOverlay();
+                // 別のプロセスがtasks.csvを同じサイズで書き換えると、更新日時の精度内ではstampが変わらない。
+                // その場合も上書き用ファイルに世代の印が追記されるので、上書き用ファイルの状態も比べる
+                if (index != null && stamp.equals(indexStamp) && overlayStamp.equals(indexOverlayStamp)) {
+                    return index;
+                }
+                Map<Integer, TaskRow> rows = new HashMap<>();
+                try (CsvTokenizer csv = openCsv()) {
+                    // タイトル行を読み飛ばす
+                    csv.nextRow();
+                    while (csv.nextRow()) {
+                        // CSVに間違いがあったらスキップする
+                        if (csv.fieldCount() != 4) {
+                            continue;
+                        }
+                        TaskRow row = createRow(csv);
+                        // 同じコードが複数ある場合は後の行を優先し、前の行はpreviousにつなげる
+                        row.previous = rows.put(row.code, row);
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                index = rows;
+                indexStamp = stamp;
+                indexOverlayStamp = overlayStamp;
+                return index;
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * 上書き用ファイルを読み込みます。
+     * 更新日時とサイズが変わっていなければ前回読み込んだ内容を返します。
+     * 
+     * @return タスクコードをキーにした上書き用ファイルの行データ
+     */
+    private Map<Integer, TaskRow> loadOverlay() {
+        monitor.lock();
+        try {
+            FileStamp stamp = FileStamp.of(overlayPath);
+            if (overlay != null && stamp.equals(overlayStamp)) {
+                return overlay;
+            }
+            Map<Integer, TaskRow> rows = new HashMap<>();
+            int rowCount = 0;
+            if (new File(overlayPath).exists()) {
+                try (CsvTokenizer csv = openCompleteLines(overlayPath)) {
+                    // 上書き用ファイルにはタイトル行がない
+                    while (csv.nextRow()) {
+                        if (csv.fieldCount() != 4) {
+                            continue;
+                        }
+                        TaskRow row = createRow(csv);
+                        row.offset = -1;
+                        rows.put(row.code, row);
+                        rowCount++;
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            overlay = rows;
+            overlayRowCount = rowCount;
+            overlayStamp = stamp;
+            return overlay;
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * タスクコードの索引を破棄します。
+     * 更新日時の精度内に同じサイズで書き換えられた場合に備えて、書き込みのたびに呼び出します。
+     */
+    private void invalidateIndex() {
+        monitor.lock();
+        try {
+            cache.invalidate();
+            index = null;
+            indexStamp = null;
+            indexOverlayStamp = null;
+            overlay = null;
+            overlayStamp = null;
+        } finally {
+            monitor.unlock();
         }
-        return task;
     }
 
     /**
      * タスクデータを更新します。
+     * 更新後の行がtasks.csvの行と同じ長さであれば、その行だけをファイル上で書き換えます。
+     * 長さが変わる場合は上書き用ファイルに追記し、一定数たまったらtasks.csvに書き戻します。
+     * WriteMode.WALの場合は全ての更新を上書き用ファイルに追記し、ディスクに反映されてから索引とキャッシュに反映します。
      * 
+     * @see WriteMode
+     * @see #compact()
      * @param updateTask 更新するタスク
      */
+    @SuppressWarnings("try")
     public void update(Task updateTask) throws AppException {
-        List<Task> tasks = findAll();
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
+        monitor.lock();
+        try {
+            long startNanos = System.nanoTime();
+            try {
+                try (FileLocks.Held lock = FileLocks.write(filePath)) {
+                    int code = updateTask.getCode();
+                    TaskRow row = loadIndex().get(code);
+                    // 更新対象のタスクがなければ何もしない
+                    if (row == null) {
+                        return;
+                    }
+                    String line = createLine(updateTask);
+                    byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                    TaskRow updated = new TaskRow(code, updateTask.getName(), updateTask.getStatus(),
+                            updateTask.getRepUser().getCode());
+                    FileStamp[] before = cache.stamp();
+                    TaskCounts currentCounts = currentCounts();
+                    TaskRow overlaid = overlay.get(code);
+                    try {
+                        if (writeMode == WriteMode.IN_PLACE && !overlay.containsKey(code) && hasLength(row, bytes.length)) {
+                            // 同じサイズの書き換えは更新日時が同じになると見分けられないので、スナップショットを先に削除し、
+                            // 上書き用ファイルに世代の印を追記して別のプロセスの索引とキャッシュに変更を知らせる
+                            ColumnSnapshot.delete(filePath);
+                            appendOverlay("");
+                            writeInPlace(row, bytes);
+                            // 自分の書き込みなので索引は作り直さずに反映する
+                            index.put(code, relocate(updated, row));
+                            indexStamp = FileStamp.of(filePath);
+                        } else {
+                            appendOverlay(line);
+                            updated.offset = -1;
+                            overlay.put(code, updated);
+                            overlayRowCount++;
+                        }
+                        overlayStamp = FileStamp.of(overlayPath);
+                        indexOverlayStamp = overlayStamp;
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        invalidateIndex();
+                        return;
+                    }
+                    cache.writeThrough(code, updated, before);
+                    if (currentCounts != null) {
+                        // 同じコードの行は全て更新後の内容になる
+                        for (TaskRow r = row; r != null; r = r.previous) {
+                            TaskRow old = overlaid != null ? overlaid : r;
+                            currentCounts.add(old.status, old.repUserCode, -1);
+                            currentCounts.add(updated.status, updated.repUserCode, 1);
+                        }
+                        saveCounts(currentCounts);
+                    }
+                    if (overlayRowCount >= COMPACTION_THRESHOLD || overlayStamp.size() >= OVERLAY_SIZE_THRESHOLD) {
+                        compact();
+                    }
+                }
+            } finally {
+                UPDATE_TIME.recordSince(startNanos);
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * 上書き用ファイルの内容をtasks.csvに書き戻し、上書き用ファイルを削除します。
+     * 上書き用ファイルがなければ何もしません。上書き用ファイルに世代の印しかなければ、書き戻さずに削除します。
+     * 書き戻した内容は一時ファイルに書き込んでディスクに反映してから、tasks.csvと置き換えます。
+     * 置き換えた後、上書き用ファイルを削除する前に中断しても、上書き用ファイルの行は書き戻した行と同じなので結果は変わりません。
+     */
+    @SuppressWarnings("try")
+    public void compact() {
+        monitor.lock();
+        try {
+            long startNanos = System.nanoTime();
+            try {
+                try (FileLocks.Held lock = FileLocks.write(filePath)) {
+                    if (loadOverlay().isEmpty()) {
+                        if (new File(overlayPath).exists()) {
+                            TaskCounts currentCounts = currentCounts();
+                            deleteOverlay();
+                            if (currentCounts != null) {
+                                saveCounts(currentCounts);
+                            }
+                            invalidateIndex();
+                        }
+                        return;
+                    }
+                    TaskCounts currentCounts = currentCounts();
+                    try {
+                        rewrite(readRows());
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        invalidateIndex();
+                        return;
+                    }
+                    deleteOverlay();
+                    // 書き戻しても件数は変わらない
+                    if (currentCounts != null) {
+                        saveCounts(currentCounts);
+                    }
+                    invalidateIndex();
+                }
+            } finally {
+                COMPACT_TIME.recordSince(startNanos);
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * 複数のタスクデータをまとめて更新します。
+     * tasks.csvと上書き用ファイルを1回だけ読み込み、更新後の全ての行を{@link #compact()}と同じ方法で1回で書き戻します。
+     * 書き戻す前に更新後の行を上書き用ファイルに追記してディスクに反映し、書き戻した後は上書き用ファイルを削除します。
+     * 同じコードのタスクが複数ある場合は後のものを使います。更新対象のタスクがないコードは無視し、1件もなければファイルには触れません。
+     * 
+     * @param updateTasks 更新するタスク
+     */
+    @SuppressWarnings("try")
+    public void updateAll(Collection<Task> updateTasks) {
+        monitor.lock();
+        try {
+            long startNanos = System.nanoTime();
+            try {
+                if (updateTasks.isEmpty()) {
+                    return;
+                }
+                try (FileLocks.Held lock = FileLocks.write(filePath)) {
+                    TaskCounts currentCounts = currentCounts();
+                    try {
+                        writeUpdates(new ArrayList<>(cachedRows()), toRows(updateTasks), currentCounts);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        invalidateIndex();
+                    }
+                }
+            } finally {
+                UPDATE_ALL_TIME.recordSince(startNanos);
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * 複数のタスクデータを読み込み、updaterが作った更新後のタスクで更新します。
+     * 書き込みのロックを持ったまま、全ての行を1回だけ読み込んでupdaterに渡し、
+     * {@link #updateAll(Collection)}と同じ方法で1回で書き戻します。
+     * 読み込んでから書き戻すまでの間に、別のスレッドやプロセスが書き込むことはありません。
+     * 
+     * @param codes   読み込むタスクのコード
+     * @param updater 現在のタスクから更新後のタスクを作る処理
+     * @return updaterが返した更新後のタスク
+     * @throws AppException updaterがスローした場合か、書き戻せなかった場合
+     */
+    @SuppressWarnings("try")
+    public List<Task> updateAll(Set<Integer> codes, Updater updater) throws AppException {
+        monitor.lock();
+        try {
+            long startNanos = System.nanoTime();
+            try {
+                try (FileLocks.Held lock = FileLocks.write(filePath)) {
+                    TaskCounts currentCounts = currentCounts();
+                    List<TaskRow> rows = new ArrayList<>(cachedRows());
+                    // 同じコードの行が複数ある場合は後の行を優先する
+                    Map<Integer, TaskRow> latest = new HashMap<>();
+                    for (TaskRow row : rows) {
+                        if (codes.contains(row.code)) {
+                            latest.put(row.code, row);
+                        }
+                    }
+                    List<Task> updated = updater.update(toTasks(latest.values()));
+                    if (updated.isEmpty()) {
+                        return updated;
+                    }
+                    try {
+                        writeUpdates(rows, toRows(updated), currentCounts);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        invalidateIndex();
+                        throw new AppException("タスクを更新できませんでした");
+                    }
+                    return updated;
+                }
+            } finally {
+                UPDATE_ALL_TIME.recordSince(startNanos);
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * 行データの同じコードの行を全て更新後の行に置き換えて、tasks.csvに書き戻します。
+     * 書き戻す前に更新後の行を上書き用ファイルに追記してディスクに反映するので、
+     * tasks.csvを置き換えた後、上書き用ファイルを削除する前に中断しても、古い行が更新後の行を上書きすることはありません。
+     * 書き戻した後は上書き用ファイルを削除し、書き戻した行から索引とキャッシュを作ります。
+     * 置き換える行がなければファイルには触れません。書き込みのロックを持って呼び出します。
+     * 
+     * @param rows          上書き用ファイルの内容を反映した全ての行データ。置き換えた行に書き換える
+     * @param updates       タスクコードをキーにした更新後の行
+     * @param currentCounts 書き込む前の件数。なければnull
+     * @throws IOException 書き戻せなかった場合
+     */
+    private void writeUpdates(List<TaskRow> rows, Map<Integer, TaskRow> updates, TaskCounts currentCounts)
+            throws IOException {
+        List<TaskRow> replaced = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            TaskRow updated = updates.get(rows.get(i).code);
+            if (updated != null) {
+                replaced.add(rows.set(i, updated));
+            }
+        }
+        if (replaced.isEmpty()) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (TaskRow old : replaced) {
+            TaskRow updated = updates.get(old.code);
+            lines.append(updated.code).append(',').append(updated.name).append(',').append(updated.status)
+                    .append(',').append(updated.repUserCode).append('\n');
+        }
+        appendOverlay(lines.toString(), true);
+        List<TaskRow> written = rewrite(rows);
+        deleteOverlay();
+        if (currentCounts != null) {
+            for (TaskRow old : replaced) {
+                TaskRow updated = updates.get(old.code);
+                currentCounts.add(old.status, old.repUserCode, -1);
+                currentCounts.add(updated.status, updated.repUserCode, 1);
+            }
+            saveCounts(currentCounts);
+        }
+        // 書き戻した内容は分かっているので、次の読み込みでファイルを読み直さないようにする
+        index = new HashMap<>();
+        int[] codes = new int[written.size()];
+        for (int i = 0; i < codes.length; i++) {
+            TaskRow row = written.get(i);
+            row.previous = index.put(row.code, row);
+            codes[i] = row.code;
+        }
+        indexStamp = FileStamp.of(filePath);
+        overlay = new HashMap<>();
+        overlayRowCount = 0;
+        overlayStamp = FileStamp.of(overlayPath);
+        indexOverlayStamp = overlayStamp;
+        cache.invalidate();
+        cache.putAll(written, codes, cache.stamp());
+    }
+
+    /**
+     * 更新するタスクを行データにします。同じコードのタスクが複数ある場合は後のものを使います。
+     * 
+     * @param tasks 更新するタスク
+     * @return タスクコードをキーにした行データ
+     */
+    private static Map<Integer, TaskRow> toRows(Collection<Task> tasks) {
+        Map<Integer, TaskRow> rows = new HashMap<>();
+        for (Task task : tasks) {
+            rows.put(task.getCode(), new TaskRow(task.getCode(), task.getName(), task.getStatus(),
+                    task.getRepUser().getCode()));
+        }
+        return rows;
+    }
+
+    /**
+     * 行データからタスクを作成します。担当ユーザーは1回でまとめて取得します。
+     * 
+     * @see com.taskapp.dataaccess.UserDataAccess#findAllByCodes(Set)
+     * @param rows 行データ
+     * @return タスクコードをキーにしたタスク
+     */
+    private Map<Integer, Task> toTasks(Collection<TaskRow> rows) {
+        Set<Integer> repUserCodes = new HashSet<>();
+        for (TaskRow row : rows) {
+            repUserCodes.add(row.repUserCode);
+        }
+        Map<Integer, User> repUsers = userDataAccess.findAllByCodes(repUserCodes);
+        Map<Integer, Task> tasks = new HashMap<>();
+        for (TaskRow row : rows) {
+            // Taskコンストラクタ(int code, String name, int status, User repUser)
+            tasks.put(row.code, new Task(row.code, row.name, row.status, repUsers.get(row.repUserCode)));
+        }
+        return tasks;
+    }
+
+    /**
+     * 全ての行を一時ファイルに書き込んでディスクに反映してから、tasks.csvと置き換えます。
+     * 失敗した場合は一時ファイルを削除し、tasks.csvは元のままにします。
+     * 
+     * @param rows 書き込む行データ。この順に書き込む
+     * @return 書き込んだ行データ。ファイル上の位置を持つ
+     * @throws IOException 書き込みか置き換えに失敗した場合
+     */
+    private List<TaskRow> rewrite(List<TaskRow> rows) throws IOException {
+        // 置き換えた後のファイルが同じサイズになる場合に備えて、スナップショットを先に削除する
+        ColumnSnapshot.delete(filePath);
+        String tempPath = filePath + ".tmp";
+        try (FileOutputStream out = new FileOutputStream(tempPath);
+                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
             // CSVのヘッダーを書き込む
             // Task(int code, String name, int status, User repUser)
-            writer.write("Code,Name,Status,RepUser\n");
+            String header = "Code,Name,Status,RepUser\n";
+            writer.write(header);
 
-            String line;
-            for (Task task : tasks) {
-                // 編集の対象ならTaskの情報を書き込む
-                if (task.getCode() == updateTask.getCode()) {
-                    line = createLine(updateTask);
-                } else {
-                    line = createLine(task);
-                }
+            List<TaskRow> written = new ArrayList<>(rows.size());
+            long offset = header.length();
+            int newLineLength = System.lineSeparator().length();
+            for (TaskRow row : rows) {
+                String line = row.code + "," + row.name + "," + row.status + "," + row.repUserCode;
                 writer.write(line);
                 writer.newLine();
+                TaskRow writtenRow = new TaskRow(row.code, row.name, row.status, row.repUserCode);
+                writtenRow.offset = offset;
+                writtenRow.length = line.getBytes(StandardCharsets.UTF_8).length;
+                written.add(writtenRow);
+                offset += writtenRow.length + newLineLength;
             }
+            writer.flush();
+            out.getFD().sync();
+            Files.move(Paths.get(tempPath), Paths.get(filePath), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            return written;
         } catch (IOException e) {
-            e.printStackTrace();
+            new File(tempPath).delete();
+            throw e;
         }
     }
 
@@ -161,6 +958,293 @@ public class TaskDataAccess {
     // }
     // }
 
+    /**
+     * 上書き用ファイルの内容を反映した全ての行を返します。
+     * キャッシュになければファイルから読み込んでキャッシュに追加します。
+     * 
+     * @return ファイルの順に並んだ行データ
+     */
+    @SuppressWarnings("try")
+    private List<TaskRow> cachedRows() {
+        monitor.lock();
+        try {
+            try (FileLocks.Held lock = FileLocks.read(filePath)) {
+                List<TaskRow> rows = cache.getAll();
+                if (rows != null) {
+                    return rows;
+                }
+                FileStamp[] stamp = cache.stamp();
+                rows = readRows();
+                int[] codes = new int[rows.size()];
+                for (int i = 0; i < codes.length; i++) {
+                    codes[i] = rows.get(i).code;
+                }
+                cache.putAll(rows, codes, stamp);
+                return rows;
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * tasks.csvの全ての行を読み込み、上書き用ファイルの内容を反映して返します。
+     * 
+     * @return ファイルの順に並んだ行データ
+     */
+    private List<TaskRow> readRows() {
+        monitor.lock();
+        try {
+            Map<Integer, TaskRow> currentOverlay = loadOverlay();
+            List<TaskRow> rows = readMode == ReadMode.SNAPSHOT ? readSnapshotRows() : readCsvRows();
+            if (!currentOverlay.isEmpty()) {
+                rows.replaceAll(row -> currentOverlay.getOrDefault(row.code, row));
+            }
+            return rows;
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * tasks.csvの全ての行を読み込みます。
+     * 
+     * @return ファイルの順に並んだ行データ
+     */
+    private List<TaskRow> readCsvRows() {
+        if (readMode == ReadMode.PARALLEL) {
+            return readCsvRowsInParallel();
+        }
+        List<TaskRow> rows = new ArrayList<>();
+        try (CsvTokenizer csv = openCsv()) {
+            // タイトル行を読み飛ばす
+            csv.nextRow();
+            while (csv.nextRow()) {
+                // CSVに間違いがあったらスキップする
+                if (csv.fieldCount() != 4) {
+                    continue;
+                }
+                rows.add(createRow(csv));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return rows;
+    }
+
+    /**
+     * tasks.csvを範囲に分けて並列に読み込みます。
+     * 範囲ごとに読み込んだ行をファイルの順につなげるので、順番に読み込んだ場合と同じ結果になります。
+     * 
+     * @see ParallelCsvLoader
+     * @return ファイルの順に並んだ行データ
+     */
+    private List<TaskRow> readCsvRowsInParallel() {
+        List<TaskRow> rows = new ArrayList<>();
+        try {
+            List<List<TaskRow>> chunks = ParallelCsvLoader.load(filePath, csv -> {
+                List<TaskRow> chunk = new ArrayList<>();
+                while (csv.nextRow()) {
+                    // CSVに間違いがあったらスキップする
+                    if (csv.fieldCount() != 4) {
+                        continue;
+                    }
+                    chunk.add(createRow(csv));
+                }
+                return chunk;
+            });
+            for (List<TaskRow> chunk : chunks) {
+                rows.addAll(chunk);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return rows;
+    }
+
+    /**
+     * tasks.csvのスナップショットから全ての行を読み込みます。
+     * スナップショットがtasks.csvより古ければ、tasks.csvを読み込んでスナップショットを作り直します。
+     * 
+     * @see ColumnSnapshot
+     * @return ファイルの順に並んだ行データ
+     */
+    private List<TaskRow> readSnapshotRows() {
+        ColumnSnapshot snapshot = ColumnSnapshot.read(filePath);
+        if (snapshot == null) {
+            long[] source = ColumnSnapshot.sourceOf(filePath);
+            List<TaskRow> rows = readCsvRows();
+            // Code,Status,RepUserを整数の列、Nameを文字列の列として保存する
+            int[][] columns = new int[3][rows.size()];
+            String[] names = new String[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                TaskRow row = rows.get(i);
+                columns[0][i] = row.code;
+                columns[1][i] = row.status;
+                columns[2][i] = row.repUserCode;
+                names[i] = row.name;
+            }
+            ColumnSnapshot.of(rows.size(), columns, names).write(filePath, source);
+            return rows;
+        }
+        int[] codes = snapshot.intColumn(0);
+        int[] statuses = snapshot.intColumn(1);
+        int[] repUserCodes = snapshot.intColumn(2);
+        List<TaskRow> rows = new ArrayList<>(snapshot.rowCount());
+        for (int i = 0; i < snapshot.rowCount(); i++) {
+            TaskRow row = new TaskRow(codes[i], snapshot.string(i), statuses[i], repUserCodes[i]);
+            row.offset = -1;
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 同じコードの全ての行が指定したバイト数かどうかを判定します。
+     * 
+     * @param row    判定する行(同じコードの前の行はpreviousにつながっている)
+     * @param length 書き込む行のバイト数
+     * @return 全ての行が同じ長さであればtrue
+     */
+    private boolean hasLength(TaskRow row, int length) {
+        for (TaskRow r = row; r != null; r = r.previous) {
+            if (r.length != length) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 同じコードの全ての行をファイル上で書き換えます。
+     * 
+     * @param row   書き換える行(同じコードの前の行はpreviousにつながっている)
+     * @param bytes 書き込む行
+     * @throws IOException 書き込みに失敗した場合
+     */
+    private void writeInPlace(TaskRow row, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.WRITE)) {
+            for (TaskRow r = row; r != null; r = r.previous) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                long position = r.offset;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+        }
+    }
+
+    /**
+     * 上書き用ファイルに1行追記します。
+     * 前回の追記が途中で中断されて最後の行が改行で終わっていなければ、その行を取り除いてから追記します。
+     * WriteMode.WALの場合は、ディスクに反映されるまで待ちます。
+     * 
+     * @param line 追記する行
+     */
+    private void appendOverlay(String line) throws IOException {
+        appendOverlay(line + "\n", writeMode == WriteMode.WAL);
+    }
+
+    /**
+     * 上書き用ファイルに改行で終わる行をまとめて追記します。
+     * 前回の追記が途中で中断されて最後の行が改行で終わっていなければ、その行を取り除いてから追記します。
+     * 
+     * @param lines 追記する行。改行で終わる
+     * @param force ディスクに反映されるまで待つ場合はtrue
+     */
+    private void appendOverlay(String lines, boolean force) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(overlayPath), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long end = size;
+            ByteBuffer last = ByteBuffer.allocate(1);
+            while (end > 0) {
+                last.clear();
+                channel.read(last, end - 1);
+                if (last.get(0) == '\n') {
+                    break;
+                }
+                end--;
+            }
+            if (end < size) {
+                channel.truncate(end);
+            }
+            ByteBuffer buffer = StandardCharsets.UTF_8.encode(lines);
+            long position = end;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            if (force) {
+                channel.force(false);
+            }
+        }
+    }
+
+    /**
+     * ファイルの最後の改行までを読み込むCsvTokenizerを作成します。
+     * 追記の途中で中断されて改行で終わっていない最後の行は読み込みません。
+     * 
+     * @param path 読み込むファイルのパス
+     * @return 作成したCsvTokenizer
+     */
+    private static CsvTokenizer openCompleteLines(String path) throws IOException {
+        byte[] bytes = Files.readAllBytes(Paths.get(path));
+        CsvTokenizer.countFileRead(bytes.length);
+        int length = bytes.length;
+        while (length > 0 && bytes[length - 1] != '\n') {
+            length--;
+        }
+        return CsvTokenizer.of(bytes, length, 0);
+    }
+
+    /**
+     * 更新後の内容を、元の行と同じファイル上の位置に置いた行データを作成します。
+     * 
+     * @param updated 更新後の内容
+     * @param row     元の行(同じコードの前の行はpreviousにつながっている)
+     * @return ファイル上の位置を引き継いだ行データ
+     */
+    private TaskRow relocate(TaskRow updated, TaskRow row) {
+        TaskRow relocated = new TaskRow(updated.code, updated.name, updated.status, updated.repUserCode);
+        relocated.offset = row.offset;
+        relocated.length = row.length;
+        if (row.previous != null) {
+            relocated.previous = relocate(updated, row.previous);
+        }
+        return relocated;
+    }
+
+    /**
+     * CSVの現在の行から1行分のデータを作成します。
+     * 文字列として保持するのはタスク名だけです。
+     * 
+     * @param csv Code,Name,Status,Rep_User_Codeの行を指しているCsvTokenizer
+     * @return 1行分のデータ
+     */
+    private TaskRow createRow(CsvTokenizer csv) {
+        TaskRow row = new TaskRow(csv.intField(0), csv.stringField(1), csv.intField(2), csv.intField(3));
+        row.offset = csv.rowOffset();
+        row.length = csv.rowLength();
+        return row;
+    }
+
+    /**
+     * 上書き用ファイルを削除します。
+     */
+    void deleteOverlay() {
+        new File(overlayPath).delete();
+    }
+
+    /**
+     * CSVファイルを読み込むためのCsvTokenizerを作成します。
+     * 
+     * @return CSVファイルのCsvTokenizer
+     * @throws IOException ファイルを開けなかった場合
+     */
+    CsvTokenizer openCsv() throws IOException {
+        return CsvTokenizer.open(filePath, readMode);
+    }
+
     /**
      * タスクデータをCSVに書き込むためのフォーマットを作成します。
      * 
@@ -170,4 +1254,30 @@ public class TaskDataAccess {
     private String createLine(Task task) {
         return task.getCode() + "," + task.getName() + "," + task.getStatus() + "," + task.getRepUser().getCode();
     }
-}
\ No newline at end of file
+
+    /**
+     * tasks.csvの1行分のデータです。
+     */
+    private static final class TaskRow {
+        private final int code;
+        private final String name;
+        private final int status;
+        private final int repUserCode;
+
+        /** ファイル上の行の開始位置。上書き用ファイルとスナップショットの行は-1 */
+        private long offset;
+
+        /** ファイル上の行のバイト数(改行を含まない) */
+        private int length;
+
+        /** 同じコードを持つ前の行 */
+        private TaskRow previous;
+
+        private TaskRow(int code, String name, int status, int repUserCode) {
+            this.code = code;
+            this.name = name;
+            this.status = status;
+            this.repUserCode = repUserCode;
+        }
+    }
+}
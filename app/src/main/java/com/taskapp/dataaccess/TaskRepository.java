@@ -0,0 +1,124 @@
+package com.taskapp.dataaccess;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Task;
+
+/**
+ * タスクの保存先です。
+ * CSVファイルに保存する{@link TaskDataAccess}と、組み込みデータベースに保存する
+ * {@link com.taskapp.dataaccess.jdbc.JdbcTaskRepository}があります。
+ * 同じコードのタスクを複数保存した場合、findAllは全てを返し、findByCodeは後に保存したものを返します。
+ *
+ * @see Repositories
+ */
+public interface TaskRepository {
+    /** findPageで条件を指定しないときに使う値 */
+    int ANY = -1;
+
+    /**
+     * 全てのタスクを保存した順に取得します。
+     *
+     * @return タスクのリスト
+     */
+    List<Task> findAll() throws AppException;
+
+    /**
+     * 条件に一致するタスクを、保存した順に指定した範囲だけ取得します。
+     *
+     * @param status      取得するタスクのステータス。全てのステータスを取得する場合は{@link #ANY}
+     * @param repUserCode 取得するタスクの担当ユーザーのコード。全てのユーザーを取得する場合は{@link #ANY}
+     * @param offset      読み飛ばす一致したタスクの件数
+     * @param limit       取得する最大件数
+     * @return 条件に一致したタスクのリスト
+     */
+    List<Task> findPage(int status, int repUserCode, int offset, int limit) throws AppException;
+
+    /**
+     * コードを基にタスクを1件取得します。
+     *
+     * @param code 取得するタスクのコード
+     * @return 取得したタスク。なければnull
+     */
+    Task findByCode(int code) throws AppException;
+
+    /**
+     * 複数のコードを基にタスクをまとめて取得します。同じコードのタスクが複数ある場合は後に保存したものを返します。
+     *
+     * @param codes 取得するタスクのコード
+     * @return タスクコードをキーにした見つかったタスクのMap
+     */
+    Map<Integer, Task> findAllByCodes(Set<Integer> codes) throws AppException;
+
+    /**
+     * タスクを保存します。
+     *
+     * @param task 保存するタスク
+     */
+    void save(Task task);
+
+    /**
+     * 複数のタスクをまとめて保存します。
+     *
+     * @param tasks 保存するタスク。この順に保存する
+     */
+    void saveAll(Collection<Task> tasks);
+
+    /**
+     * 同じコードのタスクを全て更新します。更新対象のタスクがなければ何もしません。
+     *
+     * @param updateTask 更新するタスク
+     */
+    void update(Task updateTask) throws AppException;
+
+    /**
+     * 複数のタスクをまとめて更新します。同じコードのタスクは全て更新します。
+     * 更新対象のタスクがないコードは無視します。
+     *
+     * @param updateTasks 更新するタスク。同じコードのタスクが複数ある場合は後のものを使う
+     */
+    void updateAll(Collection<Task> updateTasks);
+
+    /**
+     * 複数のタスクを読み込み、その内容を基に作った更新後のタスクで更新します。
+     * 読み込みから更新までを1回の読み込みと1回の書き込みで行い、その間は他の書き込みを待たせます。
+     * updaterが例外をスローした場合は、どのタスクも更新しません。
+     *
+     * @param codes   読み込むタスクのコード
+     * @param updater 現在のタスクから更新後のタスクを作る処理
+     * @return updaterが返した更新後のタスク
+     * @throws AppException updaterがスローした場合か、更新に失敗した場合
+     */
+    List<Task> updateAll(Set<Integer> codes, Updater updater) throws AppException;
+
+    /**
+     * ステータスごとのタスクの件数を取得します。
+     *
+     * @return ステータスをキーにした件数。ステータスの順に並ぶ
+     */
+    Map<Integer, Integer> countByStatus();
+
+    /**
+     * 担当ユーザーごとのタスクの件数を取得します。
+     *
+     * @return 担当ユーザーのコードをキーにした件数。コードの順に並ぶ
+     */
+    Map<Integer, Integer> countByRepUser();
+
+    /**
+     * {@link TaskRepository#updateAll(Set, Updater)}で、現在のタスクから更新後のタスクを作る処理です。
+     */
+    @FunctionalInterface
+    interface Updater {
+        /**
+         * @param current タスクコードをキーにした現在のタスク。同じコードのタスクが複数ある場合は後に保存したもの
+         * @return 更新後のタスク
+         * @throws AppException 更新できない場合
+         */
+        List<Task> update(Map<Integer, Task> current) throws AppException;
+    }
+}
@@ -1,17 +1,41 @@
 package com.taskapp.dataaccess;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.taskapp.exception.AppException;
+import com.taskapp.metrics.LatencyHistogram;
+import com.taskapp.metrics.Metrics;
 import com.taskapp.model.User;
 
-public class UserDataAccess {
+public class UserDataAccess implements UserRepository {
+    private static final LatencyHistogram FIND_ALL_TIME = Metrics.histogram("UserDataAccess.findAll");
+    private static final LatencyHistogram FIND_BY_EMAIL_AND_PASSWORD_TIME = Metrics.histogram("UserDataAccess.findByEmailAndPassword");
+    private static final LatencyHistogram FIND_BY_CODE_TIME = Metrics.histogram("UserDataAccess.findByCode");
+    private static final LatencyHistogram FIND_ALL_BY_CODES_TIME = Metrics.histogram("UserDataAccess.findAllByCodes");
+
     private final String filePath;
 
+    private final ReadMode readMode;
+
+    /** コードをキーにしたユーザー。同じファイルを読み込む全てのUserDataAccessで共有する */
+    private final EntityCache<User> cache;
+
+    /** メールアドレスをキーにしたユーザーの一覧。ログインで初めて必要になったときに作成する */
+    private Map<String, List<User>> emailIndex;
+
+    /** emailIndexを作成したときのCSVファイルの状態 */
+    private FileStamp emailIndexStamp;
+
     public UserDataAccess() {
         filePath = "app/src/main/resources/users.csv";
+        readMode = ReadMode.STREAM;
+        cache = EntityCache.shared(filePath);
     }
 
     /**
@@ -20,72 +44,208 @@ public class UserDataAccess {
      * @param filePath
      */
     public UserDataAccess(String filePath) {
+        this(filePath, ReadMode.STREAM);
+    }
+
+    /**
+     * 読み込み方法を指定してUserDataAccessを作成します。
+     * 
+     * @param filePath ユーザーを保存するCSVファイルのパス
+     * @param readMode CSVファイルの読み込み方法
+     */
+    public UserDataAccess(String filePath, ReadMode readMode) {
         this.filePath = filePath;
+        this.readMode = readMode;
+        this.cache = EntityCache.shared(filePath);
+    }
+
+    /**
+     * CSVから全てのユーザーデータをファイルの順に取得します。
+     * 
+     * @return ユーザーのリスト
+     */
+    public List<User> findAll() {
+        long startNanos = System.nanoTime();
+        try {
+            List<User> users = new ArrayList<>();
+            try (CsvTokenizer csv = openCsv()) {
+                // タイトル行を読み飛ばす
+                csv.nextRow();
+                while (csv.nextRow()) {
+                    // Userオブジェクト(int code, String name, String email, String password)
+                    users.add(createUser(csv));
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return users;
+        } finally {
+            FIND_ALL_TIME.recordSince(startNanos);
+        }
     }
 
     /**
      * メールアドレスとパスワードを基にユーザーデータを探します。
+     * 一致するユーザーが複数ある場合は後の行を優先します。
      * 
      * @param email    メールアドレス
      * @param password パスワード
      * @return 見つかったユーザー
      */
     public User findByEmailAndPassword(String email, String password) {
-        User user = null;
-        // メールアドレスとパスワードを基にデータを探す
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            // タイトル行を読み飛ばす
-            reader.readLine();
-            while ((line = reader.readLine()) != null) {
-                String[] values = line.split(",");
+        long startNanos = System.nanoTime();
+        try {
+            List<User> candidates = loadEmailIndex().get(email);
+            if (candidates == null) {
+                return null;
+            }
+            // 後の行から順にパスワードが一致するか確認する
+            for (int i = candidates.size() - 1; i >= 0; i--) {
+                User user = candidates.get(i);
+                if (user.getPassword().equals(password)) {
+                    return user;
+                }
+            }
+            return null;
+        } finally {
+            FIND_BY_EMAIL_AND_PASSWORD_TIME.recordSince(startNanos);
+        }
+    }
 
-                // メールアドレス、パスワードが一致しなかったらスキップ
-                if (!(values[2].equals(email) && values[3].equals(password)))
-                    continue;
+    /**
+     * メールアドレスの索引を取得します。
+     * CSVファイルの更新日時かサイズが変わっていた場合は作り直します。
+     * 
+     * @return メールアドレスをキーにしたユーザーの一覧
+     */
+    private synchronized Map<String, List<User>> loadEmailIndex() {
+        FileStamp stamp = FileStamp.of(filePath);
+        if (emailIndex != null && stamp.equals(emailIndexStamp)) {
+            return emailIndex;
+        }
+        Map<String, List<User>> users = new HashMap<>();
+        try (CsvTokenizer csv = openCsv()) {
+            // タイトル行を読み飛ばす
+            csv.nextRow();
+            while (csv.nextRow()) {
                 // Userオブジェクト(int code, String name, String email, String password)
-                int code = Integer.parseInt(values[0]);
-                String name = values[1];
-                String userEmail = values[2];
-                String userPassword = values[3];
-                user = new User(code, name, userEmail, userPassword);
+                User user = createUser(csv);
+                users.computeIfAbsent(user.getEmail(), key -> new ArrayList<>(1)).add(user);
             }
         } catch (IOException e) {
             e.printStackTrace();
-            ;
         }
-        return user;
+        emailIndex = users;
+        emailIndexStamp = stamp;
+        return emailIndex;
     }
 
     /**
      * コードを基にユーザーデータを取得します。
+     * 一度取得したユーザーは、CSVファイルが変更されるまでキャッシュから返します。
      * 
      * @param code 取得するユーザーのコード
      * @return 見つかったユーザー
      */
     public User findByCode(int code) throws AppException {
-        User user = null;
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            // タイトル行を読み飛ばす
-            reader.readLine();
-            while ((line = reader.readLine()) != null) {
-                String[] values = line.split(",");
+        long startNanos = System.nanoTime();
+        try {
+            User user = cache.get(code);
+            if (user != null) {
+                return user;
+            }
+            FileStamp[] stamp = cache.stamp();
+            try (CsvTokenizer csv = openCsv()) {
+                // タイトル行を読み飛ばす
+                csv.nextRow();
+                while (csv.nextRow()) {
+                    // コードが一致しない行は文字列の列を読まずにスキップ
+                    if (code != csv.intField(0))
+                        continue;
 
-                int userCode = Integer.parseInt(values[0]);
-                if (code != userCode)
-                    continue;
+                    // Userオブジェクト(int code, String name, String email, String password)
+                    user = createUser(csv);
+                }
 
-                // Userオブジェクト(int code, String name, String email, String password)
-                String name = values[1];
-                String userEmail = values[2];
-                String userPassword = values[3];
-                user = new User(code, name, userEmail, userPassword);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            if (user != null) {
+                cache.put(code, user, stamp);
             }
+            return user;
+        } finally {
+            FIND_BY_CODE_TIME.recordSince(startNanos);
+        }
+    }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * 複数のコードを基にユーザーデータをまとめて取得します。
+     * キャッシュにないユーザーがいる場合だけ、CSVの読み込みを1回行います。
+     * 
+     * @param codes 取得するユーザーのコード
+     * @return ユーザーコードをキーにした見つかったユーザーのMap
+     */
+    public Map<Integer, User> findAllByCodes(Set<Integer> codes) {
+        long startNanos = System.nanoTime();
+        try {
+            Map<Integer, User> users = new HashMap<>();
+            Set<Integer> missing = new HashSet<>();
+            for (Integer code : codes) {
+                User cached = cache.get(code);
+                if (cached != null) {
+                    users.put(code, cached);
+                } else {
+                    missing.add(code);
+                }
+            }
+            if (missing.isEmpty()) {
+                return users;
+            }
+            FileStamp[] stamp = cache.stamp();
+            Map<Integer, User> found = new HashMap<>();
+            try (CsvTokenizer csv = openCsv()) {
+                // タイトル行を読み飛ばす
+                csv.nextRow();
+                while (csv.nextRow()) {
+                    int userCode = csv.intField(0);
+                    if (!missing.contains(userCode))
+                        continue;
+
+                    // 同じコードが複数ある場合はfindByCodeと同じく後の行を優先する
+                    found.put(userCode, createUser(csv));
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            for (Map.Entry<Integer, User> entry : found.entrySet()) {
+                cache.put(entry.getKey(), entry.getValue(), stamp);
+            }
+            users.putAll(found);
+            return users;
+        } finally {
+            FIND_ALL_BY_CODES_TIME.recordSince(startNanos);
         }
-        return user;
+    }
+
+    /**
+     * CSVの現在の行からユーザーを作成します。
+     * 
+     * @param csv Code,Name,Email,Passwordの行を指しているCsvTokenizer
+     * @return 作成したユーザー
+     */
+    private User createUser(CsvTokenizer csv) {
+        // Userオブジェクト(int code, String name, String email, String password)
+        return new User(csv.intField(0), csv.stringField(1), csv.stringField(2), csv.stringField(3));
+    }
+
+    /**
+     * CSVファイルを読み込むためのCsvTokenizerを作成します。
+     * 
+     * @return CSVファイルのCsvTokenizer
+     * @throws IOException ファイルを開けなかった場合
+     */
+    CsvTokenizer openCsv() throws IOException {
+        return CsvTokenizer.open(filePath, readMode);
     }
 }
@@ -0,0 +1,48 @@
+package com.taskapp.dataaccess;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.taskapp.exception.AppException;
+import com.taskapp.model.User;
+
+/**
+ * ユーザーの保存先です。
+ * 同じコードやメールアドレスのユーザーが複数ある場合は、後に保存したものを優先します。
+ *
+ * @see Repositories
+ */
+public interface UserRepository {
+    /**
+     * 全てのユーザーを保存した順に取得します。
+     *
+     * @return ユーザーのリスト
+     */
+    List<User> findAll();
+
+    /**
+     * メールアドレスとパスワードを基にユーザーを探します。
+     *
+     * @param email    メールアドレス
+     * @param password パスワード
+     * @return 見つかったユーザー。なければnull
+     */
+    User findByEmailAndPassword(String email, String password);
+
+    /**
+     * コードを基にユーザーを取得します。
+     *
+     * @param code 取得するユーザーのコード
+     * @return 見つかったユーザー。なければnull
+     */
+    User findByCode(int code) throws AppException;
+
+    /**
+     * 複数のコードを基にユーザーをまとめて取得します。
+     *
+     * @param codes 取得するユーザーのコード
+     * @return ユーザーコードをキーにした見つかったユーザーのMap
+     */
+    Map<Integer, User> findAllByCodes(Set<Integer> codes);
+}
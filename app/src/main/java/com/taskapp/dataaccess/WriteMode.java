@@ -0,0 +1,21 @@
+package com.taskapp.dataaccess;
+
+/**
+ * CSVファイルへの更新の書き込み方法です。
+ * どちらの方法でも、上書き用ファイルをCSVファイルに書き戻すときは一時ファイルに書き込んでから置き換えるので、
+ * 書き戻しの途中で中断してもCSVファイルが壊れることはありません。
+ */
+public enum WriteMode {
+    /**
+     * 更新後の行が元の行と同じ長さであれば、CSVファイルのその行だけを書き換える。
+     * 長さが変わる場合は上書き用ファイルに追記します。ディスクへの反映は待ちません。
+     */
+    IN_PLACE,
+
+    /**
+     * 全ての更新を上書き用ファイルに追記し、ディスクへの反映を待ってから反映済みとする(ログ先行書き込み)。
+     * CSVファイルの行は書き戻すとき以外は書き換えないので、更新の途中で中断しても更新前か更新後のどちらかの内容が残ります。
+     * 書き込みの途中で中断した最後の行は読み込むときに無視し、次に追記するときに取り除きます。
+     */
+    WAL
+}
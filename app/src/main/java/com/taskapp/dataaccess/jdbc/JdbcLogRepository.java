@@ -0,0 +1,115 @@
+package com.taskapp.dataaccess.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.taskapp.dataaccess.LogRepository;
+import com.taskapp.metrics.LatencyHistogram;
+import com.taskapp.metrics.Metrics;
+import com.taskapp.model.Log;
+
+/**
+ * ログを組み込みデータベースのlogsテーブルに保存します。
+ * タスクコードの列には索引があるので、findByTaskCodeとdeleteByTaskCodeで全ての行は読みません。
+ */
+public class JdbcLogRepository implements LogRepository {
+    private static final LatencyHistogram SAVE_ALL_TIME = Metrics.histogram("JdbcLogRepository.saveAll");
+    private static final LatencyHistogram FIND_ALL_TIME = Metrics.histogram("JdbcLogRepository.findAll");
+    private static final LatencyHistogram FIND_BY_TASK_CODE_TIME = Metrics.histogram("JdbcLogRepository.findByTaskCode");
+    private static final LatencyHistogram DELETE_BY_TASK_CODE_TIME = Metrics.histogram("JdbcLogRepository.deleteByTaskCode");
+
+    private static final String SELECT_LOG = "SELECT task_code, change_user_code, status, change_date FROM logs";
+
+    private final JdbcStore store;
+
+    /**
+     * @param store ログを保存するデータベース
+     */
+    public JdbcLogRepository(JdbcStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void save(Log log) {
+        saveAll(Collections.singletonList(log));
+    }
+
+    /**
+     * 複数のログを1つのトランザクションでまとめて保存します。
+     */
+    @Override
+    public void saveAll(Collection<Log> logs) {
+        long startNanos = System.nanoTime();
+        try {
+            store.inTransaction(connection -> {
+                JdbcStore.insertLogs(connection, logs);
+                return null;
+            });
+        } finally {
+            SAVE_ALL_TIME.recordSince(startNanos);
+        }
+    }
+
+    @Override
+    public List<Log> findAll() {
+        long startNanos = System.nanoTime();
+        try {
+            return store.call(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(SELECT_LOG + " ORDER BY seq");
+                        ResultSet result = statement.executeQuery()) {
+                    return readLogs(result);
+                }
+            });
+        } finally {
+            FIND_ALL_TIME.recordSince(startNanos);
+        }
+    }
+
+    @Override
+    public List<Log> findByTaskCode(int taskCode) {
+        long startNanos = System.nanoTime();
+        try {
+            return store.call(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        SELECT_LOG + " WHERE task_code = ? ORDER BY seq")) {
+                    statement.setInt(1, taskCode);
+                    try (ResultSet result = statement.executeQuery()) {
+                        return readLogs(result);
+                    }
+                }
+            });
+        } finally {
+            FIND_BY_TASK_CODE_TIME.recordSince(startNanos);
+        }
+    }
+
+    @Override
+    public void deleteByTaskCode(int taskCode) {
+        long startNanos = System.nanoTime();
+        try {
+            store.call(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement("DELETE FROM logs WHERE task_code = ?")) {
+                    statement.setInt(1, taskCode);
+                    return statement.executeUpdate();
+                }
+            });
+        } finally {
+            DELETE_BY_TASK_CODE_TIME.recordSince(startNanos);
+        }
+    }
+
+    private static List<Log> readLogs(ResultSet result) throws SQLException {
+        List<Log> logs = new ArrayList<>();
+        while (result.next()) {
+            // Log(int taskCode, int changeUserCode, int status, LocalDate changeDate)
+            logs.add(new Log(result.getInt(1), result.getInt(2), result.getInt(3),
+                    result.getDate(4).toLocalDate()));
+        }
+        return logs;
+    }
+}
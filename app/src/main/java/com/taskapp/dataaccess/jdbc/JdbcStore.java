@@ -0,0 +1,254 @@
+package com.taskapp.dataaccess.jdbc;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+import com.taskapp.dataaccess.LogRepository;
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.dataaccess.UserRepository;
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * ユーザー、タスク、ログを保存する組み込みデータベースへの接続です。
+ * H2をアプリケーションと同じプロセスで動かすことを想定しており、URLはjdbc:h2:./taskappのように指定します。
+ * 接続は1つだけ開き、全ての操作はこのオブジェクトのロックの中で1つずつ行います。
+ * SQLの実行に失敗した場合は、空の結果を返さずにIllegalStateExceptionをスローします。
+ * 初めて接続したときにテーブルと索引を作成します。
+ *
+ * @see JdbcTaskRepository
+ * @see JdbcUserRepository
+ * @see JdbcLogRepository
+ */
+public class JdbcStore implements AutoCloseable {
+    /** 保存した順に並べるため、タスクとログには連番の列を持たせる。コードには索引を作る */
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS users (code INT PRIMARY KEY, name VARCHAR(255) NOT NULL,"
+                    + " email VARCHAR(255) NOT NULL, password VARCHAR(255) NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS users_email ON users (email)",
+            "CREATE TABLE IF NOT EXISTS tasks (seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,"
+                    + " code INT NOT NULL, name VARCHAR(255) NOT NULL, status INT NOT NULL, rep_user_code INT)",
+            "CREATE INDEX IF NOT EXISTS tasks_code ON tasks (code)",
+            "CREATE INDEX IF NOT EXISTS tasks_status ON tasks (status)",
+            "CREATE INDEX IF NOT EXISTS tasks_rep_user_code ON tasks (rep_user_code)",
+            "CREATE TABLE IF NOT EXISTS logs (seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,"
+                    + " task_code INT NOT NULL, change_user_code INT NOT NULL, status INT NOT NULL,"
+                    + " change_date DATE NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS logs_task_code ON logs (task_code)",
+    };
+
+    /** 同じコードのユーザーを保存した場合は後に保存したもので置き換える */
+    static final String MERGE_USER = "MERGE INTO users (code, name, email, password) KEY (code) VALUES (?, ?, ?, ?)";
+
+    static final String INSERT_TASK = "INSERT INTO tasks (code, name, status, rep_user_code) VALUES (?, ?, ?, ?)";
+
+    static final String INSERT_LOG = "INSERT INTO logs (task_code, change_user_code, status, change_date)"
+            + " VALUES (?, ?, ?, ?)";
+
+    /** SQLの実行に失敗したときの例外のメッセージ */
+    private static final String FAILURE_MESSAGE = "データベースの操作に失敗しました";
+
+    /** バッチで実行するSQLをデータベースに送る件数 */
+    static final int BATCH_SIZE = 1000;
+
+    private final Connection connection;
+
+    /**
+     * データベースに接続し、テーブルがなければ作成します。
+     *
+     * @param url データベースのJDBC URL
+     * @throws SQLException 接続かテーブルの作成に失敗した場合
+     */
+    public JdbcStore(String url) throws SQLException {
+        connection = DriverManager.getConnection(url);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * ユーザーが1件も保存されていないかどうかを判定します。
+     *
+     * @return 保存されていなければtrue
+     */
+    public boolean isEmpty() {
+        return call(connection -> {
+            try (Statement statement = connection.createStatement();
+                    ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM users")) {
+                result.next();
+                return result.getLong(1) == 0;
+            }
+        });
+    }
+
+    /**
+     * 別の保存先の全てのユーザー、タスク、ログを1つのトランザクションで追加します。
+     * CSVファイルからデータベースへ移すときに使います。
+     *
+     * @param users 追加するユーザーの保存先
+     * @param tasks 追加するタスクの保存先
+     * @param logs  追加するログの保存先
+     * @throws AppException タスクを読み込めなかった場合
+     */
+    public void importFrom(UserRepository users, TaskRepository tasks, LogRepository logs) throws AppException {
+        List<User> userList = users.findAll();
+        List<Task> taskList = tasks.findAll();
+        List<Log> logList = logs.findAll();
+        inTransaction(connection -> {
+            insertUsers(connection, userList);
+            insertTasks(connection, taskList);
+            insertLogs(connection, logList);
+            return null;
+        });
+    }
+
+    /**
+     * 接続を閉じます。インメモリのデータベースの場合、保存した内容は失われます。
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 接続を使う処理を、他の処理と重ならないように実行します。
+     *
+     * @param work 実行する処理
+     * @return 処理の結果
+     * @throws IllegalStateException SQLExceptionがスローされた場合
+     */
+    synchronized <T> T call(SqlWork<T, RuntimeException> work) {
+        try {
+            return work.run(connection);
+        } catch (SQLException e) {
+            throw new IllegalStateException(FAILURE_MESSAGE, e);
+        }
+    }
+
+    /**
+     * 接続を使う処理を1つのトランザクションで実行します。
+     * 途中で失敗した場合はロールバックします。処理がスローしたSQLException以外の例外はそのままスローします。
+     *
+     * @param work 実行する処理
+     * @return 処理の結果
+     * @throws E                     処理がスローした場合
+     * @throws IllegalStateException SQLExceptionがスローされた場合
+     */
+    synchronized <T, E extends Exception> T inTransaction(SqlWork<T, E> work) throws E {
+        try {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run(connection);
+                connection.commit();
+                return result;
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(FAILURE_MESSAGE, e);
+        }
+    }
+
+    static void insertUsers(Connection connection, List<User> users) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(MERGE_USER)) {
+            int pending = 0;
+            for (User user : users) {
+                statement.setInt(1, user.getCode());
+                statement.setString(2, user.getName());
+                statement.setString(3, user.getEmail());
+                statement.setString(4, user.getPassword());
+                statement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    static void insertTasks(Connection connection, Iterable<Task> tasks) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_TASK)) {
+            int pending = 0;
+            for (Task task : tasks) {
+                bindTask(statement, task);
+                statement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    static void insertLogs(Connection connection, Iterable<Log> logs) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_LOG)) {
+            int pending = 0;
+            for (Log log : logs) {
+                bindLog(statement, log);
+                statement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * INSERT_TASKの引数にタスクの値を設定します。担当ユーザーがいない場合はNULLにします。
+     */
+    static void bindTask(PreparedStatement statement, Task task) throws SQLException {
+        statement.setInt(1, task.getCode());
+        statement.setString(2, task.getName());
+        statement.setInt(3, task.getStatus());
+        if (task.getRepUser() != null) {
+            statement.setInt(4, task.getRepUser().getCode());
+        } else {
+            statement.setNull(4, Types.INTEGER);
+        }
+    }
+
+    /**
+     * INSERT_LOGの引数にログの値を設定します。
+     */
+    static void bindLog(PreparedStatement statement, Log log) throws SQLException {
+        statement.setInt(1, log.getTaskCode());
+        statement.setInt(2, log.getChangeUserCode());
+        statement.setInt(3, log.getStatus());
+        statement.setDate(4, Date.valueOf(log.getChangeDate()));
+    }
+
+    /**
+     * 接続を使う処理です。
+     *
+     * @param <E> SQLException以外にスローする例外
+     */
+    @FunctionalInterface
+    interface SqlWork<T, E extends Exception> {
+        T run(Connection connection) throws SQLException, E;
+    }
+}
@@ -0,0 +1,322 @@
+package com.taskapp.dataaccess.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.exception.AppException;
+import com.taskapp.metrics.LatencyHistogram;
+import com.taskapp.metrics.Metrics;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスクを組み込みデータベースのtasksテーブルに保存します。
+ * 担当ユーザーはusersテーブルと結合して1回の問い合わせで取得します。
+ * コード、ステータス、担当ユーザーの列には索引があるので、findByCodeやfindPage、件数の集計で全ての行は読みません。
+ */
+public class JdbcTaskRepository implements TaskRepository {
+    private static final LatencyHistogram FIND_ALL_TIME = Metrics.histogram("JdbcTaskRepository.findAll");
+    private static final LatencyHistogram FIND_PAGE_TIME = Metrics.histogram("JdbcTaskRepository.findPage");
+    private static final LatencyHistogram FIND_BY_CODE_TIME = Metrics.histogram("JdbcTaskRepository.findByCode");
+    private static final LatencyHistogram FIND_ALL_BY_CODES_TIME = Metrics.histogram("JdbcTaskRepository.findAllByCodes");
+    private static final LatencyHistogram SAVE_ALL_TIME = Metrics.histogram("JdbcTaskRepository.saveAll");
+    private static final LatencyHistogram UPDATE_TIME = Metrics.histogram("JdbcTaskRepository.update");
+    private static final LatencyHistogram UPDATE_ALL_TIME = Metrics.histogram("JdbcTaskRepository.updateAll");
+    private static final LatencyHistogram COUNT_BY_STATUS_TIME = Metrics.histogram("JdbcTaskRepository.countByStatus");
+    private static final LatencyHistogram COUNT_BY_REP_USER_TIME = Metrics.histogram("JdbcTaskRepository.countByRepUser");
+
+    private static final String SELECT_TASK = "SELECT t.code, t.name, t.status, t.rep_user_code, u.name, u.email, u.password"
+            + " FROM tasks t LEFT JOIN users u ON u.code = t.rep_user_code";
+
+    private static final String UPDATE_TASK = "UPDATE tasks SET name = ?, status = ?, rep_user_code = ? WHERE code = ?";
+
+    private final JdbcStore store;
+
+    /**
+     * @param store タスクを保存するデータベース
+     */
+    public JdbcTaskRepository(JdbcStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public List<Task> findAll() {
+        long startNanos = System.nanoTime();
+        try {
+            return store.call(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(SELECT_TASK + " ORDER BY t.seq");
+                        ResultSet result = statement.executeQuery()) {
+                    return readTasks(result);
+                }
+            });
+        } finally {
+            FIND_ALL_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 条件に一致するタスクを、保存した順に指定した範囲だけ取得します。
+     * 指定した条件だけをWHERE句にするので、条件の列の索引を使えます。
+     */
+    @Override
+    public List<Task> findPage(int status, int repUserCode, int offset, int limit) {
+        long startNanos = System.nanoTime();
+        try {
+            if (limit <= 0) {
+                return new ArrayList<>();
+            }
+            StringBuilder sql = new StringBuilder(SELECT_TASK).append(" WHERE 1 = 1");
+            if (status != ANY) {
+                sql.append(" AND t.status = ?");
+            }
+            if (repUserCode != ANY) {
+                sql.append(" AND t.rep_user_code = ?");
+            }
+            sql.append(" ORDER BY t.seq OFFSET ? ROWS FETCH NEXT ? ROWS ONLY");
+            return store.call(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                    int parameter = 1;
+                    if (status != ANY) {
+                        statement.setInt(parameter++, status);
+                    }
+                    if (repUserCode != ANY) {
+                        statement.setInt(parameter++, repUserCode);
+                    }
+                    statement.setInt(parameter++, Math.max(offset, 0));
+                    statement.setInt(parameter, limit);
+                    try (ResultSet result = statement.executeQuery()) {
+                        return readTasks(result);
+                    }
+                }
+            });
+        } finally {
+            FIND_PAGE_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * コードを基にタスクを1件取得します。同じコードのタスクが複数ある場合は後に保存したものを返します。
+     */
+    @Override
+    public Task findByCode(int code) {
+        long startNanos = System.nanoTime();
+        try {
+            return store.call(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        SELECT_TASK + " WHERE t.code = ? ORDER BY t.seq DESC FETCH FIRST 1 ROWS ONLY")) {
+                    statement.setInt(1, code);
+                    try (ResultSet result = statement.executeQuery()) {
+                        List<Task> tasks = readTasks(result);
+                        return tasks.isEmpty() ? null : tasks.get(0);
+                    }
+                }
+            });
+        } finally {
+            FIND_BY_CODE_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 複数のコードを基にタスクを1回の問い合わせでまとめて取得します。
+     * 保存した順に読み、同じコードのタスクは後のもので置き換えます。
+     */
+    @Override
+    public Map<Integer, Task> findAllByCodes(Set<Integer> codes) {
+        long startNanos = System.nanoTime();
+        try {
+            if (codes.isEmpty()) {
+                return new HashMap<>();
+            }
+            return store.call(connection -> selectByCodes(connection, codes));
+        } finally {
+            FIND_ALL_BY_CODES_TIME.recordSince(startNanos);
+        }
+    }
+
+    @Override
+    public void save(Task task) {
+        saveAll(Collections.singletonList(task));
+    }
+
+    /**
+     * 複数のタスクを1つのトランザクションでまとめて保存します。
+     */
+    @Override
+    public void saveAll(Collection<Task> tasks) {
+        long startNanos = System.nanoTime();
+        try {
+            store.inTransaction(connection -> {
+                JdbcStore.insertTasks(connection, tasks);
+                return null;
+            });
+        } finally {
+            SAVE_ALL_TIME.recordSince(startNanos);
+        }
+    }
+
+    @Override
+    public void update(Task updateTask) {
+        long startNanos = System.nanoTime();
+        try {
+            store.call(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(UPDATE_TASK)) {
+                    bindUpdate(statement, updateTask);
+                    return statement.executeUpdate();
+                }
+            });
+        } finally {
+            UPDATE_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 複数のタスクを1つのトランザクションでまとめて更新します。
+     * 途中で失敗した場合はどのタスクも更新せず、IllegalStateExceptionをスローします。
+     */
+    @Override
+    public void updateAll(Collection<Task> updateTasks) {
+        long startNanos = System.nanoTime();
+        try {
+            store.inTransaction(connection -> {
+                updateTasks(connection, updateTasks);
+                return null;
+            });
+        } finally {
+            UPDATE_ALL_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 複数のタスクの読み込みと更新を1つのトランザクションで行います。
+     * データベースへの操作は{@link JdbcStore}のロックの中で1つずつ行うので、読み込んでから更新するまでの間に別の更新が入ることはありません。
+     * updaterが例外をスローした場合や途中で失敗した場合はロールバックします。
+     */
+    @Override
+    public List<Task> updateAll(Set<Integer> codes, Updater updater) throws AppException {
+        long startNanos = System.nanoTime();
+        try {
+            return store.inTransaction(connection -> {
+                Map<Integer, Task> current = codes.isEmpty() ? new HashMap<>() : selectByCodes(connection, codes);
+                List<Task> updated = updater.update(current);
+                updateTasks(connection, updated);
+                return updated;
+            });
+        } finally {
+            UPDATE_ALL_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 複数のコードを基にタスクを1回の問い合わせで取得します。同じコードのタスクは後に保存したもので置き換えます。
+     */
+    private static Map<Integer, Task> selectByCodes(Connection connection, Set<Integer> codes) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                SELECT_TASK + " WHERE t.code = ANY(?) ORDER BY t.seq")) {
+            statement.setArray(1, connection.createArrayOf("INTEGER", codes.toArray()));
+            try (ResultSet result = statement.executeQuery()) {
+                Map<Integer, Task> tasks = new HashMap<>();
+                for (Task task : readTasks(result)) {
+                    tasks.put(task.getCode(), task);
+                }
+                return tasks;
+            }
+        }
+    }
+
+    /**
+     * 複数のタスクをバッチでまとめて更新します。
+     */
+    private static void updateTasks(Connection connection, Collection<Task> updateTasks) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_TASK)) {
+            int pending = 0;
+            for (Task task : updateTasks) {
+                bindUpdate(statement, task);
+                statement.addBatch();
+                if (++pending == JdbcStore.BATCH_SIZE) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * UPDATE_TASKの引数にタスクの値を設定します。
+     */
+    private static void bindUpdate(PreparedStatement statement, Task task) throws SQLException {
+        statement.setString(1, task.getName());
+        statement.setInt(2, task.getStatus());
+        statement.setInt(3, task.getRepUser().getCode());
+        statement.setInt(4, task.getCode());
+    }
+
+    @Override
+    public Map<Integer, Integer> countByStatus() {
+        long startNanos = System.nanoTime();
+        try {
+            return count("status");
+        } finally {
+            COUNT_BY_STATUS_TIME.recordSince(startNanos);
+        }
+    }
+
+    @Override
+    public Map<Integer, Integer> countByRepUser() {
+        long startNanos = System.nanoTime();
+        try {
+            return count("rep_user_code");
+        } finally {
+            COUNT_BY_REP_USER_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 指定した列の値ごとにタスクを数えます。
+     *
+     * @param column 数える列の名前
+     * @return 列の値をキーにした件数。値の順に並ぶ
+     */
+    private Map<Integer, Integer> count(String column) {
+        return store.call(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT " + column + ", COUNT(*) FROM tasks WHERE " + column + " IS NOT NULL GROUP BY " + column);
+                    ResultSet result = statement.executeQuery()) {
+                Map<Integer, Integer> counts = new TreeMap<>();
+                while (result.next()) {
+                    counts.put(result.getInt(1), result.getInt(2));
+                }
+                return counts;
+            }
+        });
+    }
+
+    /**
+     * SELECT_TASKの結果からタスクを作成します。担当ユーザーが見つからない場合はnullにします。
+     */
+    private static List<Task> readTasks(ResultSet result) throws SQLException {
+        List<Task> tasks = new ArrayList<>();
+        while (result.next()) {
+            User repUser = null;
+            String userName = result.getString(5);
+            if (userName != null) {
+                // Userオブジェクト(int code, String name, String email, String password)
+                repUser = new User(result.getInt(4), userName, result.getString(6), result.getString(7));
+            }
+            // Taskコンストラクタ(int code, String name, int status, User repUser)
+            tasks.add(new Task(result.getInt(1), result.getString(2), result.getInt(3), repUser));
+        }
+        return tasks;
+    }
+}
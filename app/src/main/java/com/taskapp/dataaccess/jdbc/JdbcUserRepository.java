@@ -0,0 +1,130 @@
+package com.taskapp.dataaccess.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.taskapp.dataaccess.UserRepository;
+import com.taskapp.metrics.LatencyHistogram;
+import com.taskapp.metrics.Metrics;
+import com.taskapp.model.User;
+
+/**
+ * ユーザーを組み込みデータベースのusersテーブルから取得します。
+ * コードは主キー、メールアドレスには索引があるので、ログインやコードでの取得で全ての行は読みません。
+ */
+public class JdbcUserRepository implements UserRepository {
+    private static final LatencyHistogram FIND_ALL_TIME = Metrics.histogram("JdbcUserRepository.findAll");
+    private static final LatencyHistogram FIND_BY_EMAIL_AND_PASSWORD_TIME = Metrics.histogram("JdbcUserRepository.findByEmailAndPassword");
+    private static final LatencyHistogram FIND_BY_CODE_TIME = Metrics.histogram("JdbcUserRepository.findByCode");
+    private static final LatencyHistogram FIND_ALL_BY_CODES_TIME = Metrics.histogram("JdbcUserRepository.findAllByCodes");
+
+    private static final String SELECT_USER = "SELECT code, name, email, password FROM users";
+
+    private final JdbcStore store;
+
+    /**
+     * @param store ユーザーを保存するデータベース
+     */
+    public JdbcUserRepository(JdbcStore store) {
+        this.store = store;
+    }
+
+    /**
+     * 全てのユーザーをコードの順に取得します。
+     */
+    @Override
+    public List<User> findAll() {
+        long startNanos = System.nanoTime();
+        try {
+            return store.call(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(SELECT_USER + " ORDER BY code");
+                        ResultSet result = statement.executeQuery()) {
+                    return readUsers(result);
+                }
+            });
+        } finally {
+            FIND_ALL_TIME.recordSince(startNanos);
+        }
+    }
+
+    @Override
+    public User findByEmailAndPassword(String email, String password) {
+        long startNanos = System.nanoTime();
+        try {
+            return store.call(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        SELECT_USER + " WHERE email = ? AND password = ? ORDER BY code DESC FETCH FIRST 1 ROWS ONLY")) {
+                    statement.setString(1, email);
+                    statement.setString(2, password);
+                    try (ResultSet result = statement.executeQuery()) {
+                        List<User> users = readUsers(result);
+                        return users.isEmpty() ? null : users.get(0);
+                    }
+                }
+            });
+        } finally {
+            FIND_BY_EMAIL_AND_PASSWORD_TIME.recordSince(startNanos);
+        }
+    }
+
+    @Override
+    public User findByCode(int code) {
+        long startNanos = System.nanoTime();
+        try {
+            return store.call(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(SELECT_USER + " WHERE code = ?")) {
+                    statement.setInt(1, code);
+                    try (ResultSet result = statement.executeQuery()) {
+                        List<User> users = readUsers(result);
+                        return users.isEmpty() ? null : users.get(0);
+                    }
+                }
+            });
+        } finally {
+            FIND_BY_CODE_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 複数のコードを基にユーザーを1回の問い合わせでまとめて取得します。
+     */
+    @Override
+    public Map<Integer, User> findAllByCodes(Set<Integer> codes) {
+        long startNanos = System.nanoTime();
+        try {
+            Map<Integer, User> users = new HashMap<>();
+            if (codes.isEmpty()) {
+                return users;
+            }
+            return store.call(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        SELECT_USER + " WHERE code = ANY(?)")) {
+                    statement.setArray(1, connection.createArrayOf("INTEGER", codes.toArray()));
+                    try (ResultSet result = statement.executeQuery()) {
+                        for (User user : readUsers(result)) {
+                            users.put(user.getCode(), user);
+                        }
+                        return users;
+                    }
+                }
+            });
+        } finally {
+            FIND_ALL_BY_CODES_TIME.recordSince(startNanos);
+        }
+    }
+
+    private static List<User> readUsers(ResultSet result) throws SQLException {
+        List<User> users = new ArrayList<>();
+        while (result.next()) {
+            // Userオブジェクト(int code, String name, String email, String password)
+            users.add(new User(result.getInt(1), result.getString(2), result.getString(3), result.getString(4)));
+        }
+        return users;
+    }
+}
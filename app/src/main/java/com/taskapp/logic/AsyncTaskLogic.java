@@ -0,0 +1,174 @@
+package com.taskapp.logic;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * TaskLogicの処理を仮想スレッドで実行し、結果をCompletableFutureで返します。
+ * 呼び出したスレッドはファイルの読み書きを待たないので、複数の保存やステータスの変更を続けて呼び出すと、
+ * それぞれのファイルの読み書きが重なって実行されます。
+ * 同じファイルへの書き込みはTaskDataAccessとLogDataAccessのロックで1つずつ行われるため、重なるのは待ち時間と別のファイルへの書き込みです。
+ * AppExceptionがスローされた場合、返したCompletableFutureはそのAppExceptionで例外完了します。
+ * 使い終わったら{@link #close()}で、実行中の処理の終了を待って仮想スレッドの実行を終了してください。
+ */
+public class AsyncTaskLogic implements AutoCloseable {
+    private final TaskLogic taskLogic;
+
+    private final ExecutorService executor;
+
+    /**
+     * 処理ごとに仮想スレッドを作成するAsyncTaskLogicを作成します。
+     *
+     * @param taskLogic 処理を行うTaskLogic
+     */
+    public AsyncTaskLogic(TaskLogic taskLogic) {
+        this(taskLogic, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * 処理を実行するExecutorServiceを指定してAsyncTaskLogicを作成します。
+     * 指定したExecutorServiceは{@link #close()}で終了します。
+     *
+     * @param taskLogic 処理を行うTaskLogic
+     * @param executor  処理を実行するExecutorService
+     */
+    public AsyncTaskLogic(TaskLogic taskLogic, ExecutorService executor) {
+        this.taskLogic = taskLogic;
+        this.executor = executor;
+    }
+
+    /**
+     * 全てのタスクを表示します。
+     *
+     * @see TaskLogic#showAll(User)
+     * @param loginUser ログインユーザー
+     * @return 表示し終えたら完了するCompletableFuture
+     */
+    public CompletableFuture<Void> showAll(User loginUser) {
+        return run(() -> taskLogic.showAll(loginUser));
+    }
+
+    /**
+     * 条件に一致するタスクを、指定した範囲だけ表示します。
+     *
+     * @see TaskLogic#showAll(User, int, boolean, int, int)
+     * @return 表示し終えたら完了するCompletableFuture
+     */
+    public CompletableFuture<Void> showAll(User loginUser, int status, boolean mineOnly, int offset, int limit) {
+        return run(() -> taskLogic.showAll(loginUser, status, mineOnly, offset, limit));
+    }
+
+    /**
+     * 新しいタスクを保存します。
+     *
+     * @see TaskLogic#save(int, String, int, User)
+     * @return 保存し終えたら完了するCompletableFuture。ユーザーコードが存在しない場合はAppExceptionで例外完了する
+     */
+    public CompletableFuture<Void> save(int code, String name, int repUserCode, User loginUser) {
+        return run(() -> taskLogic.save(code, name, repUserCode, loginUser));
+    }
+
+    /**
+     * 複数の新しいタスクをまとめて保存します。
+     *
+     * @see TaskLogic#saveAll(Collection, User)
+     * @return 保存し終えたら完了するCompletableFuture。保存できないタスクがある場合はAppExceptionで例外完了する
+     */
+    public CompletableFuture<Void> saveAll(Collection<Task> tasks, User loginUser) {
+        return run(() -> taskLogic.saveAll(tasks, loginUser));
+    }
+
+    /**
+     * タスクのステータスを変更します。
+     *
+     * @see TaskLogic#changeStatus(int, int, User)
+     * @return 変更し終えたら完了するCompletableFuture。変更できない場合はAppExceptionで例外完了する
+     */
+    public CompletableFuture<Void> changeStatus(int code, int status, User loginUser) {
+        return run(() -> taskLogic.changeStatus(code, status, loginUser));
+    }
+
+    /**
+     * 複数のタスクのステータスをまとめて変更します。
+     *
+     * @see TaskLogic#changeStatusBatch(Map, User)
+     * @return 変更し終えたら完了するCompletableFuture。変更できないものがある場合はAppExceptionで例外完了する
+     */
+    public CompletableFuture<Void> changeStatusBatch(Map<Integer, Integer> changes, User loginUser) {
+        return run(() -> taskLogic.changeStatusBatch(changes, loginUser));
+    }
+
+    /**
+     * ステータスごとのタスクの件数を取得します。
+     *
+     * @see TaskLogic#countByStatus()
+     * @return 件数を返すCompletableFuture
+     */
+    public CompletableFuture<Map<Integer, Integer>> countByStatus() {
+        return call(taskLogic::countByStatus);
+    }
+
+    /**
+     * 担当ユーザーごとのタスクの件数を取得します。
+     *
+     * @see TaskLogic#countByRepUser()
+     * @return 件数を返すCompletableFuture
+     */
+    public CompletableFuture<Map<Integer, Integer>> countByRepUser() {
+        return call(taskLogic::countByRepUser);
+    }
+
+    /**
+     * 実行中の処理が終わるのを待ち、処理を実行するExecutorServiceを終了します。
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    private CompletableFuture<Void> run(Action action) {
+        return call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 処理を仮想スレッドで実行し、その結果で完了するCompletableFutureを返します。
+     * supplyAsyncと違い、例外はCompletionExceptionで包まずにそのまま例外完了させます。
+     */
+    private <T> CompletableFuture<T> call(Work<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(work.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * AppExceptionをスローするTaskLogicの処理です。
+     */
+    @FunctionalInterface
+    private interface Action {
+        void run() throws AppException;
+    }
+
+    /**
+     * 結果を返すTaskLogicの処理です。
+     */
+    @FunctionalInterface
+    private interface Work<T> {
+        T call() throws AppException;
+    }
+}
@@ -0,0 +1,91 @@
+package com.taskapp.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスクのステータスの変更が許されるかどうかを判定します。
+ * 変更前と変更後のステータスの組み合わせごとに可否を表にしておき、判定は表を引くだけで行います。
+ * 許される変更は「未着手」から「着手中」と、「着手中」から「完了」だけです。
+ */
+public final class StatusTransitions {
+    /** 未着手 */
+    public static final int NOT_STARTED = 0;
+
+    /** 着手中 */
+    public static final int IN_PROGRESS = 1;
+
+    /** 完了 */
+    public static final int DONE = 2;
+
+    static final String TASK_NOT_FOUND_MESSAGE = "存在するタスクコードを入力してください";
+
+    static final String ILLEGAL_TRANSITION_MESSAGE = "ステータスは、前のステータスより1つ先のもののみを選択してください";
+
+    /** [変更前][変更後]のステータスの変更が許されるかどうか */
+    private static final boolean[][] ALLOWED = new boolean[DONE + 1][DONE + 1];
+
+    static {
+        ALLOWED[NOT_STARTED][IN_PROGRESS] = true;
+        ALLOWED[IN_PROGRESS][DONE] = true;
+    }
+
+    private StatusTransitions() {
+    }
+
+    /**
+     * ステータスの変更が許されるかどうかを判定します。
+     *
+     * @param from 変更前のステータス
+     * @param to   変更後のステータス
+     * @return 許される場合はtrue。どちらかがステータスの範囲外であればfalse
+     */
+    public static boolean isAllowed(int from, int to) {
+        return from >= 0 && from < ALLOWED.length && to >= 0 && to < ALLOWED.length && ALLOWED[from][to];
+    }
+
+    /**
+     * ステータスの変更が許されるかどうかを確認します。
+     *
+     * @param from 変更前のステータス
+     * @param to   変更後のステータス
+     * @throws AppException 許されない変更の場合にスローされます
+     */
+    public static void check(int from, int to) throws AppException {
+        if (!isAllowed(from, to)) {
+            throw new AppException(ILLEGAL_TRANSITION_MESSAGE);
+        }
+    }
+
+    /**
+     * 複数のタスクのステータスの変更をまとめて確認し、変更後のタスクを作成します。
+     * 全ての変更を1回ずつ確認し、1件でも変更できないものがあれば何も返さずにAppExceptionをスローします。
+     * 渡したタスクは変更しないので、保存は全ての確認を終えた後に返したタスクでまとめて行えます。
+     *
+     * @param changes   タスクコードをキーにした変更後のステータス
+     * @param current   タスクコードをキーにした変更前のタスク
+     * @param loginUser 変更するユーザー。変更後のタスクの担当ユーザーになる
+     * @return 変更後のタスク。changesの順に並ぶ
+     * @throws AppException タスクコードがcurrentにない場合か、許されない変更がある場合にスローされます
+     */
+    public static List<Task> transitionAll(Map<Integer, Integer> changes, Map<Integer, Task> current, User loginUser)
+            throws AppException {
+        List<Task> updated = new ArrayList<>(changes.size());
+        for (Map.Entry<Integer, Integer> change : changes.entrySet()) {
+            Task task = current.get(change.getKey());
+            if (task == null) {
+                throw new AppException(TASK_NOT_FOUND_MESSAGE);
+            }
+            int status = change.getValue();
+            check(task.getStatus(), status);
+            // Taskコンストラクタ(int code, String name, int status, User repUser)
+            updated.add(new Task(task.getCode(), task.getName(), status, loginUser));
+        }
+        return updated;
+    }
+}
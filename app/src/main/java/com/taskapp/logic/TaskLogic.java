@@ -1,25 +1,51 @@
 package com.taskapp.logic;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.LogRepository;
+import com.taskapp.dataaccess.Repositories;
 import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.TaskRepository;
 import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.dataaccess.UserRepository;
 import com.taskapp.exception.AppException;
+import com.taskapp.metrics.LatencyHistogram;
+import com.taskapp.metrics.Metrics;
 import com.taskapp.model.Log;
 import com.taskapp.model.Task;
 import com.taskapp.model.User;
 
 public class TaskLogic {
-    private final TaskDataAccess taskDataAccess;
-    private final LogDataAccess logDataAccess;
-    private final UserDataAccess userDataAccess;
+    private static final LatencyHistogram SHOW_ALL_TIME = Metrics.histogram("TaskLogic.showAll");
+    private static final LatencyHistogram SHOW_PAGE_TIME = Metrics.histogram("TaskLogic.showPage");
+    private static final LatencyHistogram COUNT_BY_STATUS_TIME = Metrics.histogram("TaskLogic.countByStatus");
+    private static final LatencyHistogram COUNT_BY_REP_USER_TIME = Metrics.histogram("TaskLogic.countByRepUser");
+    private static final LatencyHistogram SAVE_TIME = Metrics.histogram("TaskLogic.save");
+    private static final LatencyHistogram SAVE_ALL_TIME = Metrics.histogram("TaskLogic.saveAll");
+    private static final LatencyHistogram CHANGE_STATUS_TIME = Metrics.histogram("TaskLogic.changeStatus");
+    private static final LatencyHistogram CHANGE_STATUS_BATCH_TIME = Metrics.histogram("TaskLogic.changeStatusBatch");
 
+    private final TaskRepository taskDataAccess;
+    private final LogRepository logDataAccess;
+    private final UserRepository userDataAccess;
+
+    /**
+     * 起動時に選んだ保存先を使うTaskLogicを作成します。
+     *
+     * @see Repositories#shared()
+     */
     public TaskLogic() {
-        taskDataAccess = new TaskDataAccess();
-        logDataAccess = new LogDataAccess();
-        userDataAccess = new UserDataAccess();
+        Repositories repositories = Repositories.shared();
+        taskDataAccess = repositories.tasks();
+        logDataAccess = repositories.logs();
+        userDataAccess = repositories.users();
     }
 
     /**
@@ -35,39 +61,110 @@ public class TaskLogic {
         this.userDataAccess = userDataAccess;
     }
 
+    /**
+     * 保存先を指定してTaskLogicを作成します。
+     *
+     * @param repositories タスク、ログ、ユーザーの保存先
+     */
+    public TaskLogic(Repositories repositories) {
+        this.taskDataAccess = repositories.tasks();
+        this.logDataAccess = repositories.logs();
+        this.userDataAccess = repositories.users();
+    }
+
     /**
      * 全てのタスクを表示します。
+     * 一覧はまとめて出力します。
      *
-     * @see com.taskapp.dataaccess.TaskDataAccess#findAll()
+     * @see TaskRenderer
+     * @see com.taskapp.dataaccess.TaskRepository#findAll()
      * @param loginUser ログインユーザー
      */
     // タスクの情報を一覧表示する
     public void showAll(User loginUser) throws AppException {
-        // findAllメソッドを実行して、データの一覧取得
-        List<Task> tasks = taskDataAccess.findAll();
-        // 取得したデータを表示する
-        tasks.forEach(task -> {
-            String status = "未着手";
-            if (task.getStatus() == 1) {
-                status = "着手中";
-            } else if (task.getStatus() == 2) {
-                status = "完了";
-            }
+        long startNanos = System.nanoTime();
+        try {
+            // findAllメソッドを実行して、データの一覧取得
+            List<Task> tasks = taskDataAccess.findAll();
+            // 取得したデータを表示する
+            render(tasks, loginUser);
+        } finally {
+            SHOW_ALL_TIME.recordSince(startNanos);
+        }
+    }
 
-            String repUser = task.getRepUser().getName();
-            if (task.getRepUser().getCode() == loginUser.getCode()) {
-                repUser = "あなた";
-            }
-            System.out.println("タスク名：" + repUser + "が担当しています" + ", ステータス: " + status);
-        });
+    /**
+     * 条件に一致するタスクを、指定した範囲だけ表示します。
+     * 条件の判定はCSVの読み込み中に行うため、一致しないタスクは読み込みません。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#findPage(int, int, int, int)
+     * @param loginUser ログインユーザー
+     * @param status    表示するタスクのステータス。全てのステータスを表示する場合は{@link TaskRepository#ANY}
+     * @param mineOnly  ログインユーザーが担当するタスクだけを表示する場合はtrue
+     * @param offset    読み飛ばす一致したタスクの件数
+     * @param limit     表示する最大件数
+     */
+    public void showAll(User loginUser, int status, boolean mineOnly, int offset, int limit) throws AppException {
+        long startNanos = System.nanoTime();
+        try {
+            int repUserCode = mineOnly ? loginUser.getCode() : TaskRepository.ANY;
+            List<Task> tasks = taskDataAccess.findPage(status, repUserCode, offset, limit);
+            render(tasks, loginUser);
+        } finally {
+            SHOW_PAGE_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * ステータスごとのタスクの件数を取得します。タスクの一覧は読み込みません。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#countByStatus()
+     * @return ステータスをキーにした件数
+     */
+    public Map<Integer, Integer> countByStatus() {
+        long startNanos = System.nanoTime();
+        try {
+            return taskDataAccess.countByStatus();
+        } finally {
+            COUNT_BY_STATUS_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 担当ユーザーごとのタスクの件数を取得します。タスクの一覧は読み込みません。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#countByRepUser()
+     * @return 担当ユーザーのコードをキーにした件数
+     */
+    public Map<Integer, Integer> countByRepUser() {
+        long startNanos = System.nanoTime();
+        try {
+            return taskDataAccess.countByRepUser();
+        } finally {
+            COUNT_BY_REP_USER_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * タスクの一覧を1ページ分まとめて表示します。
+     *
+     * @param tasks     表示するタスク
+     * @param loginUser ログインユーザー
+     */
+    private void render(List<Task> tasks, User loginUser) {
+        TaskRenderer renderer = new TaskRenderer(System.out);
+        for (Task task : tasks) {
+            renderer.render(task, loginUser);
+        }
+        renderer.flush();
     }
 
     /**
      * 新しいタスクを保存します。
      *
-     * @see com.taskapp.dataaccess.UserDataAccess#findByCode(int)
-     * @see com.taskapp.dataaccess.TaskDataAccess#save(com.taskapp.model.Task)
-     * @see com.taskapp.dataaccess.LogDataAccess#save(com.taskapp.model.Log)
+     * @see com.taskapp.dataaccess.UserRepository#findByCode(int)
+     * @see com.taskapp.dataaccess.TaskRepository#save(com.taskapp.model.Task)
+     * @see com.taskapp.dataaccess.LogRepository#save(com.taskapp.model.Log)
      * @param code        タスクコード
      * @param name        タスク名
      * @param repUserCode 担当ユーザーコード
@@ -76,70 +173,151 @@ public class TaskLogic {
      */
     // CSVに書き込む
     public void save(int code, String name, int repUserCode, User loginUser) throws AppException {
+        long startNanos = System.nanoTime();
+        try {
 
-        // // 担当者コードを基にユーザーデータを取得
-        User user = userDataAccess.findByCode(repUserCode);
-        if (user == null) {
-            throw new AppException("存在するユーザーコードを入力してください");
-        }
-        int status = 0;
+            // // 担当者コードを基にユーザーデータを取得
+            User user = userDataAccess.findByCode(repUserCode);
+            if (user == null) {
+                throw new AppException("存在するユーザーコードを入力してください");
+            }
+            int status = 0;
 
-        // 入力値をtaskオブジェクトにマッピング
-        // (int code, String name, int status, User repUser)
-        Task task = new Task(code, name, status,user);
+            // 入力値をtaskオブジェクトにマッピング
+            // (int code, String name, int status, User repUser)
+            Task task = new Task(code, name, status,user);
 
-        // saveメソッドを呼び出して、入力されたデータを保存
-        taskDataAccess.save(task);
+            // saveメソッドを呼び出して、入力されたデータを保存
+            taskDataAccess.save(task);
 
-        // 新しくLogオブジェクトを作成
-        // Logクラス (int taskCode, int changeUserCode, int status, LocalDate changeDate)
-        Log log = new Log(code, loginUser.getCode(), status, LocalDate.now());
-        // logs.csvにデータを1件新規登録
-        logDataAccess.save(log);
-        System.out.println(task.getName() + "の登録が完了しました。");
+            // 新しくLogオブジェクトを作成
+            // Logクラス (int taskCode, int changeUserCode, int status, LocalDate changeDate)
+            Log log = new Log(code, loginUser.getCode(), status, LocalDate.now());
+            // logs.csvにデータを1件新規登録
+            logDataAccess.save(log);
+            System.out.println(task.getName() + "の登録が完了しました。");
+        } finally {
+            SAVE_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 複数の新しいタスクをまとめて保存します。
+     * 担当ユーザーコードはユーザーデータを1回読み込んでまとめて確認し、存在しないコードが1つでもあれば何も保存しません。
+     * タスクとログはそれぞれのファイルに1回ずつまとめて書き込みます。
+     *
+     * @see com.taskapp.dataaccess.UserRepository#findAllByCodes(Set)
+     * @see com.taskapp.dataaccess.TaskRepository#saveAll(Collection)
+     * @see com.taskapp.dataaccess.LogRepository#saveAll(Collection)
+     * @param tasks     保存するタスク。コード、タスク名、担当ユーザーのコードを使い、ステータスは未着手として保存する
+     * @param loginUser ログインユーザー
+     * @throws AppException ユーザーコードが存在しない場合にスローされます
+     */
+    public void saveAll(Collection<Task> tasks, User loginUser) throws AppException {
+        long startNanos = System.nanoTime();
+        try {
+            Set<Integer> repUserCodes = new HashSet<>();
+            for (Task task : tasks) {
+                repUserCodes.add(task.getRepUser().getCode());
+            }
+            // 担当者コードを基にユーザーデータをまとめて取得
+            Map<Integer, User> repUsers = userDataAccess.findAllByCodes(repUserCodes);
+            if (repUsers.size() != repUserCodes.size()) {
+                throw new AppException("存在するユーザーコードを入力してください");
+            }
+
+            int status = 0;
+            LocalDate today = LocalDate.now();
+            List<Task> newTasks = new ArrayList<>(tasks.size());
+            List<Log> logs = new ArrayList<>(tasks.size());
+            for (Task task : tasks) {
+                // (int code, String name, int status, User repUser)
+                newTasks.add(new Task(task.getCode(), task.getName(), status, repUsers.get(task.getRepUser().getCode())));
+                // (int taskCode, int changeUserCode, int status, LocalDate changeDate)
+                logs.add(new Log(task.getCode(), loginUser.getCode(), status, today));
+            }
+            taskDataAccess.saveAll(newTasks);
+            logDataAccess.saveAll(logs);
+            System.out.println(newTasks.size() + "件のタスクの登録が完了しました。");
+        } finally {
+            SAVE_ALL_TIME.recordSince(startNanos);
+        }
     }
 
     /**
      * タスクのステータスを変更します。
      *
-     * @see com.taskapp.dataaccess.TaskDataAccess#findByCode(int)
-     * @see com.taskapp.dataaccess.TaskDataAccess#update(com.taskapp.model.Task)
-     * @see com.taskapp.dataaccess.LogDataAccess#save(com.taskapp.model.Log)
+     * @see StatusTransitions#check(int, int)
+     * @see com.taskapp.dataaccess.TaskRepository#findByCode(int)
+     * @see com.taskapp.dataaccess.TaskRepository#update(com.taskapp.model.Task)
+     * @see com.taskapp.dataaccess.LogRepository#save(com.taskapp.model.Log)
      * @param code      タスクコード
      * @param status    新しいステータス
      * @param loginUser ログインユーザー
      * @throws AppException タスクコードが存在しない、またはステータスが前のステータスより1つ先でない場合にスローされます
      */
     public void changeStatus(int code, int status, User loginUser) throws AppException {
-        Task task = taskDataAccess.findByCode(code);
+        long startNanos = System.nanoTime();
+        try {
+            Task task = taskDataAccess.findByCode(code);
         
-        // AppExceptionの例外を書く
-        if(task == null){
-            //入力されたタスクコードが `tasks.csv`に存在しない場合
-            throw new AppException("存在するタスクコードを入力してください");
-        }
-            //  スローするときのメッセージは「ステータスは、前のステータスより1つ先のもののみを選択してください」
-            // 「未着手」から「完了」
-            if(( task.getStatus() == 0) == (status  == 2)){
-                throw new AppException("ステータスは、前のステータスより1つ先のもののみを選択してください");
-                // 「着手中」から「着手中」
-            }else if(( task.getStatus() == 1) == (status  == 1  )){
-                throw new AppException("ステータスは、前のステータスより1つ先のもののみを選択してください");
-                // 「完了」から他のステータス
-            }else if(( task.getStatus() == 2) == (status  == 2 ||  status == 1 )){
-                throw new AppException("ステータスは、前のステータスより1つ先のもののみを選択してください");
+            // AppExceptionの例外を書く
+            if(task == null){
+                //入力されたタスクコードが `tasks.csv`に存在しない場合
+                throw new AppException(StatusTransitions.TASK_NOT_FOUND_MESSAGE);
             }
-            // `tasks.csv`の該当タスクのステータスを変更後のステータスに更新
-            // (int code, String name, int status, User repUser)
-            Task taskUpdate = new Task(code, task.getName(), status, loginUser);
-            taskDataAccess.update(taskUpdate);
-            // `logs.csv`にデータを1件作成する
-            // (int taskCode, int changeUserCode, int status, LocalDate changeDate)
+                // 「未着手」から「着手中」、「着手中」から「完了」以外の変更は許さない
+                StatusTransitions.check(task.getStatus(), status);
+                // `tasks.csv`の該当タスクのステータスを変更後のステータスに更新
+                // (int code, String name, int status, User repUser)
+                Task taskUpdate = new Task(code, task.getName(), status, loginUser);
+                taskDataAccess.update(taskUpdate);
+                // `logs.csv`にデータを1件作成する
+                // (int taskCode, int changeUserCode, int status, LocalDate changeDate)
             
-            Log log = new Log(code,  loginUser.getCode(), status,LocalDate.now());
-            logDataAccess.save(log);
-            System.out.println( task.getName() + "の変更が完了しました。");
+                Log log = new Log(code,  loginUser.getCode(), status,LocalDate.now());
+                logDataAccess.save(log);
+                System.out.println( task.getName() + "の変更が完了しました。");
         
+        } finally {
+            CHANGE_STATUS_TIME.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * 複数のタスクのステータスをまとめて変更します。
+     * 変更前のタスクの取得から更新までを保存先への1回の呼び出しで行い、その中で全ての変更を確認します。
+     * 確認してから更新するまでの間に別の変更が入ることはありません。ログは更新した後に1回でまとめて保存します。
+     * 1件でも変更できないものがあれば、どのタスクも変更しません。
+     *
+     * @see StatusTransitions#transitionAll(Map, Map, User)
+     * @see com.taskapp.dataaccess.TaskRepository#updateAll(Set, TaskRepository.Updater)
+     * @see com.taskapp.dataaccess.LogRepository#saveAll(Collection)
+     * @param changes   タスクコードをキーにした新しいステータス
+     * @param loginUser ログインユーザー
+     * @throws AppException タスクコードが存在しない、またはステータスが前のステータスより1つ先でないものがある場合にスローされます
+     */
+    public void changeStatusBatch(Map<Integer, Integer> changes, User loginUser) throws AppException {
+        long startNanos = System.nanoTime();
+        try {
+            if (changes.isEmpty()) {
+                return;
+            }
+            // 書き込む前に、書き込みと同じロックの中で読み込んだタスクに対して全ての変更を確認する
+            List<Task> updated = taskDataAccess.updateAll(changes.keySet(),
+                    current -> StatusTransitions.transitionAll(changes, current, loginUser));
+
+            LocalDate changeDate = LocalDate.now();
+            List<Log> logs = new ArrayList<>(updated.size());
+            for (Task task : updated) {
+                // (int taskCode, int changeUserCode, int status, LocalDate changeDate)
+                logs.add(new Log(task.getCode(), loginUser.getCode(), task.getStatus(), changeDate));
+            }
+            logDataAccess.saveAll(logs);
+            System.out.println(updated.size() + "件のタスクの変更が完了しました。");
+        } finally {
+            CHANGE_STATUS_BATCH_TIME.recordSince(startNanos);
+        }
     }
 
     /**
@@ -153,4 +331,13 @@ public class TaskLogic {
      */
     // public void delete(int code) throws AppException {
     // }
-}
\ No newline at end of file
+
+    /**
+     * まだ書き込んでいないログを書き込みます。ログアウトするときに呼び出します。
+     *
+     * @see com.taskapp.dataaccess.LogRepository#flush()
+     */
+    public void flushLogs() {
+        logDataAccess.flush();
+    }
+}
@@ -0,0 +1,123 @@
+package com.taskapp.logic;
+
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスクの一覧を1つのバッファに書き込み、まとめて出力します。
+ * 決まった文言は出力先の文字コードで一度だけ変換したものを使い回します。
+ * 出力する内容はタスクごとにSystem.out.printlnした場合と同じです。
+ */
+final class TaskRenderer {
+    /** バッファがこの大きさを超えたら、ページの途中でも出力する */
+    private static final int FLUSH_BYTES = 64 * 1024;
+
+    private static final Map<Charset, Labels> LABELS = new ConcurrentHashMap<>();
+
+    private final PrintStream out;
+
+    private final Labels labels;
+
+    /** 担当ユーザー名を変換したもの。同じユーザーが何度も出てくるので使い回す */
+    private final Map<String, byte[]> encodedNames = new HashMap<>();
+
+    private byte[] buffer = new byte[8 * 1024];
+
+    private int count;
+
+    /**
+     * 出力先を指定してTaskRendererを作成します。
+     *
+     * @param out 出力先
+     */
+    TaskRenderer(PrintStream out) {
+        this.out = out;
+        this.labels = LABELS.computeIfAbsent(out.charset(), Labels::new);
+    }
+
+    /**
+     * タスクを1件バッファに書き込みます。
+     *
+     * @param task      表示するタスク
+     * @param loginUser ログインユーザー
+     */
+    void render(Task task, User loginUser) {
+        byte[] status = labels.notStarted;
+        if (task.getStatus() == 1) {
+            status = labels.inProgress;
+        } else if (task.getStatus() == 2) {
+            status = labels.completed;
+        }
+
+        byte[] repUser;
+        if (task.getRepUser().getCode() == loginUser.getCode()) {
+            repUser = labels.you;
+        } else {
+            repUser = encodedNames.computeIfAbsent(task.getRepUser().getName(), name -> name.getBytes(labels.charset));
+        }
+        // タスク名：{担当者}が担当しています, ステータス: {ステータス}
+        append(labels.prefix);
+        append(repUser);
+        append(labels.middle);
+        append(status);
+        append(labels.lineSeparator);
+        if (count >= FLUSH_BYTES) {
+            writeBuffer();
+        }
+    }
+
+    /**
+     * バッファに書き込んだ内容を出力します。
+     */
+    void flush() {
+        writeBuffer();
+        out.flush();
+    }
+
+    private void append(byte[] bytes) {
+        if (count + bytes.length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + bytes.length));
+        }
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+
+    private void writeBuffer() {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    /**
+     * 1つの文字コードで変換した決まった文言です。
+     */
+    private static final class Labels {
+        private final Charset charset;
+        private final byte[] prefix;
+        private final byte[] middle;
+        private final byte[] you;
+        private final byte[] notStarted;
+        private final byte[] inProgress;
+        private final byte[] completed;
+        private final byte[] lineSeparator;
+
+        private Labels(Charset charset) {
+            this.charset = charset;
+            this.prefix = "タスク名：".getBytes(charset);
+            this.middle = "が担当しています, ステータス: ".getBytes(charset);
+            this.you = "あなた".getBytes(charset);
+            this.notStarted = "未着手".getBytes(charset);
+            this.inProgress = "着手中".getBytes(charset);
+            this.completed = "完了".getBytes(charset);
+            this.lineSeparator = System.lineSeparator().getBytes(charset);
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package com.taskapp.logic;
 
+import com.taskapp.dataaccess.Repositories;
 import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.dataaccess.UserRepository;
 import com.taskapp.exception.AppException;
+import com.taskapp.metrics.LatencyHistogram;
+import com.taskapp.metrics.Metrics;
 import com.taskapp.model.User;
 
 public class UserLogic {
-    private final UserDataAccess userDataAccess;
+    private static final LatencyHistogram LOGIN_TIME = Metrics.histogram("UserLogic.login");
 
+    private final UserRepository userDataAccess;
+
+    /**
+     * 起動時に選んだ保存先を使うUserLogicを作成します。
+     *
+     * @see Repositories#shared()
+     */
     public UserLogic() {
-        userDataAccess = new UserDataAccess();
+        userDataAccess = Repositories.shared().users();
     }
 
     /**
@@ -19,23 +30,37 @@ public class UserLogic {
         this.userDataAccess = userDataAccess;
     }
 
+    /**
+     * 保存先を指定してUserLogicを作成します。
+     *
+     * @param repositories ユーザーの保存先
+     */
+    public UserLogic(Repositories repositories) {
+        this.userDataAccess = repositories.users();
+    }
+
     /**
      * ユーザーのログイン処理を行います。
      *
-     * @see com.taskapp.dataaccess.UserDataAccess#findByEmailAndPassword(String, String)
+     * @see com.taskapp.dataaccess.UserRepository#findByEmailAndPassword(String, String)
      * @param email ユーザーのメールアドレス
      * @param password ユーザーのパスワード
      * @return ログインしたユーザーの情報
      * @throws AppException メールアドレスとパスワードが一致するユーザーが存在しない場合にスローされます
      */
     public User login(String email, String password) throws AppException {
-        User user =  userDataAccess.findByEmailAndPassword(email, password);
+        long startNanos = System.nanoTime();
+        try {
+            User user =  userDataAccess.findByEmailAndPassword(email, password);
 
-        // 入力されたメールアドレス、パスワードのデータがあるか判定
-        if(user == null){
-            throw new AppException("既に登録されているメールアドレス、パスワードを入力してください");
+            // 入力されたメールアドレス、パスワードのデータがあるか判定
+            if(user == null){
+                throw new AppException("既に登録されているメールアドレス、パスワードを入力してください");
+            }
+            System.out.println("ユーザー名:" + user.getName() + "でログインしました。");
+            return user;
+        } finally {
+            LOGIN_TIME.recordSince(startNanos);
         }
-        System.out.println("ユーザー名:" + user.getName() + "でログインしました。");
-        return user;
     }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.taskapp.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 回数やバイト数を数えるカウンターです。
+ * 複数のスレッドから同時に加算しても、加算するスレッド同士で待ち合わせません。
+ *
+ * @see Metrics#counter(String)
+ */
+public final class Counter {
+    private final String name;
+
+    private final LongAdder value = new LongAdder();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * 1を加算します。
+     */
+    public void increment() {
+        value.increment();
+    }
+
+    /**
+     * 値を加算します。
+     *
+     * @param delta 加算する値
+     */
+    public void add(long delta) {
+        value.add(delta);
+    }
+
+    /**
+     * これまでに加算した値の合計を返します。
+     *
+     * @return 合計
+     */
+    public long sum() {
+        return value.sum();
+    }
+
+    void reset() {
+        value.reset();
+    }
+}
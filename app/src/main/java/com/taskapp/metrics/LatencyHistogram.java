@@ -0,0 +1,170 @@
+package com.taskapp.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 処理時間(ナノ秒)の分布を記録するヒストグラムです。
+ * 64ナノ秒未満は1ナノ秒ごと、それ以上は2のべき乗の区間をそれぞれ32等分した区間ごとに件数を数えるため、
+ * パーセンタイルの誤差は値の1/32以内に収まります(HdrHistogramと同じ考え方です)。
+ * 区間の配列は作成したときに確保するので、記録するときにオブジェクトは作りません。
+ *
+ * <pre>
+ * long start = System.nanoTime();
+ * try {
+ *     // 計測する処理
+ * } finally {
+ *     histogram.recordSince(start);
+ * }
+ * </pre>
+ *
+ * @see Metrics#histogram(String)
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** この値未満は1ナノ秒ごとの区間に記録する */
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+
+    private static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+    private final String name;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * 処理時間を1件記録します。
+     *
+     * @param nanos 処理時間(ナノ秒)。負の値は0として記録する
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        sum.add(nanos);
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * System.nanoTime()で取得した開始時刻から現在までの時間を記録します。
+     *
+     * @param startNanos 処理を開始したときのSystem.nanoTime()の値
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 記録した件数を返します。
+     *
+     * @return 件数
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * 記録した処理時間の平均を返します。
+     *
+     * @return 平均(ナノ秒)。記録がなければ0
+     */
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * 記録した処理時間の最大値を返します。
+     *
+     * @return 最大値(ナノ秒)
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * 指定したパーセンタイルの処理時間を返します。
+     * 値は該当する区間の上限なので、実際の値より最大で1/32大きくなります。
+     *
+     * @param percentile 0より大きく100以下のパーセンタイル
+     * @return 処理時間(ナノ秒)。記録がなければ0
+     */
+    public long percentile(double percentile) {
+        long total = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            total += counts.get(bucket);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(bucket), max());
+            }
+        }
+        return max();
+    }
+
+    void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * 値を記録する区間を返します。
+     *
+     * @param value 0以上の値
+     * @return 区間の位置
+     */
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * 区間に記録される最大の値を返します。
+     *
+     * @param bucket 区間の位置
+     * @return 区間の上限
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+        long subBucket = (bucket & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+        // 最後の区間ではLong.MAX_VALUEになる
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
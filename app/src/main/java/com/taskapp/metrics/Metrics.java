@@ -0,0 +1,118 @@
+package com.taskapp.metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * アプリケーション全体で共有するカウンターとヒストグラムの登録先です。
+ * 計測する側は名前を指定して一度だけ取得し、static finalのフィールドに保持して使います。
+ * 同じ名前で取得すると同じオブジェクトを返します。
+ * 計測結果は{@link #dump()}でテキストとして取得できます。
+ */
+public final class Metrics {
+    /** 終了時に計測結果を書き込むファイルのパスを指定するシステムプロパティ。指定しなければ書き込まない */
+    public static final String FILE_PROPERTY = "taskapp.metrics.file";
+
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * 名前を指定してカウンターを取得します。なければ作成します。
+     *
+     * @param name カウンターの名前
+     * @return カウンター
+     */
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * 名前を指定して処理時間のヒストグラムを取得します。なければ作成します。
+     *
+     * @param name ヒストグラムの名前。計測する処理が分かるように「クラス名.メソッド名」とする
+     * @return ヒストグラム
+     */
+    public static LatencyHistogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /**
+     * 全てのカウンターとヒストグラムの値を名前の順に並べたテキストを作成します。
+     * 一度も記録していないヒストグラムは出力しません。処理時間はミリ秒で出力します。
+     *
+     * @return 計測結果のテキスト
+     */
+    public static String dump() {
+        StringBuilder text = new StringBuilder();
+        text.append("# 計測結果 ").append(LocalDateTime.now().withNano(0)).append('\n');
+        text.append("[カウンター]\n");
+        for (Counter counter : new TreeMap<>(COUNTERS).values()) {
+            text.append(String.format("%-40s %15d%n", counter.name(), counter.sum()));
+        }
+        text.append("[処理時間(ミリ秒)]\n");
+        text.append(String.format("%-40s %10s %10s %10s %10s %10s %10s%n",
+                "名前", "件数", "平均", "p50", "p90", "p99", "最大"));
+        for (LatencyHistogram histogram : new TreeMap<>(HISTOGRAMS).values()) {
+            if (histogram.count() == 0) {
+                continue;
+            }
+            text.append(String.format("%-40s %10d %10.3f %10.3f %10.3f %10.3f %10.3f%n", histogram.name(),
+                    histogram.count(), histogram.mean() / 1e6, histogram.percentile(50) / 1e6,
+                    histogram.percentile(90) / 1e6, histogram.percentile(99) / 1e6, histogram.max() / 1e6));
+        }
+        return text.toString();
+    }
+
+    /**
+     * 計測結果をファイルに書き込みます。ファイルがあれば上書きします。
+     *
+     * @param filePath 書き込むファイルのパス
+     */
+    public static void writeTo(String filePath) {
+        Path path = Paths.get(filePath);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                writer.write(dump());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * アプリケーションの終了時に計測結果をファイルに書き込むようにします。
+     * ファイルのパスはシステムプロパティtaskapp.metrics.fileで指定します。
+     * 相対パスは起動したときの作業ディレクトリからのパスになるので、実行方法によって場所が変わらないよう既定の場所は持たず、
+     * 指定がなければ何も書き込みません。
+     */
+    public static void writeOnExit() {
+        String filePath = System.getProperty(FILE_PROPERTY);
+        if (filePath == null || filePath.isEmpty()) {
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> writeTo(filePath), "metrics-writer"));
+    }
+
+    /**
+     * 全てのカウンターとヒストグラムの値を0に戻します。
+     */
+    public static void reset() {
+        COUNTERS.values().forEach(Counter::reset);
+        HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+    }
+}
@@ -7,6 +7,7 @@ import java.io.InputStreamReader;
 import com.taskapp.exception.AppException;
 import com.taskapp.logic.TaskLogic;
 import com.taskapp.logic.UserLogic;
+import com.taskapp.metrics.Metrics;
 import com.taskapp.model.User;
 
 public class TaskUI {
@@ -44,6 +45,7 @@ public class TaskUI {
      * @see com.taskapp.logic.TaskLogic#showAll(User)
      * @see #selectSubMenu()
      * @see #inputNewInformation()
+     * @see com.taskapp.metrics.Metrics#dump()
      */
     public void displayMenu() throws AppException {
         System.out.println("タスク管理アプリケーションにようこそ!!");
@@ -52,8 +54,8 @@ public class TaskUI {
         boolean flg = true;
         while (flg) {
             try {
-                System.out.println("以下1~3のメニューから好きな選択肢を選んでください。");
-                System.out.println("1. タスク一覧, 2. タスク新規登録, 3. ログアウト");
+                System.out.println("以下1~4のメニューから好きな選択肢を選んでください。");
+                System.out.println("1. タスク一覧, 2. タスク新規登録, 3. ログアウト, 4. 計測結果の表示");
                 System.out.print("選択肢：");
                 String selectMenu = reader.readLine();
 
@@ -69,11 +71,17 @@ public class TaskUI {
                         inputNewInformation(loginUser);
                         break;
                     case "3":
+                        // まとめて書き込むためにためているログを書き込む
+                        taskLogic.flushLogs();
                         System.out.println("ログアウトしました。");
                         flg = false;
                         break;
+                    case "4":
+                        // 処理時間と読み込んだ量の計測結果
+                        System.out.print(Metrics.dump());
+                        break;
                     default:
-                        System.out.println("選択肢が誤っています。1~3の中から選択してください。");
+                        System.out.println("選択肢が誤っています。1~4の中から選択してください。");
                         break;
                 }
             } catch (IOException e) {
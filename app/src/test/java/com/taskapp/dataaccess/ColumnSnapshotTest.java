@@ -0,0 +1,60 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ColumnSnapshotTest {
+    @Test
+    public void testConcurrentWritesDoNotMixSnapshots(@TempDir Path tempDir) throws Exception {
+        Path csvFile = Files.writeString(tempDir.resolve("rows.csv"), "Code\n1\n");
+        String csvPath = csvFile.toString();
+        long[] source = ColumnSnapshot.sourceOf(csvPath);
+        // スレッドごとに行数の違うスナップショットを、読み込みのロックだけを持つ場合と同じく同時に書き込む
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int rowCount = 1000 + t * 100;
+            int[] column = new int[rowCount];
+            Arrays.fill(column, rowCount);
+            ColumnSnapshot snapshot = ColumnSnapshot.of(rowCount, new int[][] { column }, null);
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 50; i++) {
+                    snapshot.write(csvPath, source);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // 最後に置き換えたスナップショットが、1つのスレッドの内容だけでできている
+        ColumnSnapshot snapshot = ColumnSnapshot.read(csvPath);
+        assertThat(snapshot).isNotNull();
+        assertThat(snapshot.intColumn(0)).containsOnly(snapshot.rowCount());
+        // 別のスレッドの書き込みの残りが後ろに付いていない。ヘッダーは36バイト、整数の列は1行4バイト
+        assertThat(Files.size(tempDir.resolve("rows.csv.snap"))).isEqualTo(36 + 4L * snapshot.rowCount());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .containsExactlyInAnyOrder("rows.csv", "rows.csv.snap");
+        }
+    }
+}
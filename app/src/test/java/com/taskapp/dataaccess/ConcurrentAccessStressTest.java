@@ -0,0 +1,112 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * 複数のセッションが同じCSVファイルを同時に更新しても、更新が失われないことを確認します。
+ * セッションごとに別のDataAccessを作り、スレッドごとに担当するタスクを更新しながらログを保存します。
+ */
+public class ConcurrentAccessStressTest {
+    private static final String TEST_FILE_PATH_USER = "src/test/resources/test_users.csv";
+
+    private static final int TASKS_PER_THREAD = 2;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testConcurrentUpdatesAreNotLost() throws Exception {
+        int threads = 8;
+        int iterations = 50;
+        Path tasksFile = createTasksFile(threads);
+        Path logsFile = createLogsFile();
+
+        run(threads, iterations, tasksFile, logsFile);
+
+        List<Task> tasks = new TaskDataAccess(tasksFile.toString(), new UserDataAccess(TEST_FILE_PATH_USER))
+                .findAll();
+        assertThat(tasks).hasSize(threads * TASKS_PER_THREAD);
+        for (Task task : tasks) {
+            // 各タスクの最後の更新が残っている
+            int offset = (task.getCode() - 1) % TASKS_PER_THREAD;
+            int last = iterations - 1 - (iterations - 1 - offset) % TASKS_PER_THREAD;
+            assertThat(task.getName()).isEqualTo(nameOf(task.getCode(), last));
+            assertThat(task.getStatus()).isEqualTo(last % 3);
+        }
+        assertThat(new LogDataAccess(logsFile.toString()).findAll()).hasSize(threads * iterations);
+        assertThat(Files.readAllLines(logsFile)).hasSize(threads * iterations + 1);
+    }
+
+    /**
+     * スレッドごとに別のTaskDataAccessとLogDataAccessを作り、同時に更新します。
+     */
+    private void run(int threads, int iterations, Path tasksFile, Path logsFile) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int firstCode = t * TASKS_PER_THREAD + 1;
+            futures.add(executor.submit(() -> {
+                UserDataAccess userDataAccess = new UserDataAccess(TEST_FILE_PATH_USER);
+                TaskDataAccess taskDataAccess = new TaskDataAccess(tasksFile.toString(), userDataAccess);
+                LogDataAccess logDataAccess = new LogDataAccess(logsFile.toString());
+                User repUser = userDataAccess.findByCode(1);
+                start.await();
+                for (int i = 0; i < iterations; i++) {
+                    int code = firstCode + i % TASKS_PER_THREAD;
+                    // 名前の長さが変わるので、上書き用ファイルへの追記と書き戻しも同時に起きる
+                    taskDataAccess.update(new Task(code, nameOf(code, i), i % 3, repUser));
+                    logDataAccess.save(new Log(code, repUser.getCode(), i % 3, LocalDate.of(2024, 1, 1)));
+                }
+                logDataAccess.close();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+    }
+
+    private String nameOf(int code, int iteration) {
+        return "task" + code + "-" + "x".repeat(iteration % 7) + iteration;
+    }
+
+    private Path createTasksFile(int threads) throws IOException {
+        Path file = Files.createTempFile(tempDir, "tasks", ".csv");
+        List<String> lines = new ArrayList<>();
+        lines.add("Code,Name,Status,Rep_User_Code");
+        for (int code = 1; code <= threads * TASKS_PER_THREAD; code++) {
+            lines.add(code + ",task" + code + ",0,1");
+        }
+        Files.write(file, lines);
+        return file;
+    }
+
+    private Path createLogsFile() throws IOException {
+        Path file = Files.createTempFile(tempDir, "logs", ".csv");
+        Files.writeString(file, "Task_Code,Change_User_Code,Status,Change_Date");
+        return file;
+    }
+}
@@ -0,0 +1,53 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class EntityCacheTest {
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty("taskapp.cache.revalidateMillis");
+    }
+
+    @Test
+    public void testGetSkipsRevalidationWithinInterval() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("rows.csv"), "1,a");
+        System.setProperty("taskapp.cache.revalidateMillis", "60000");
+        EntityCache<String> cache = EntityCache.shared(file.toString());
+        cache.put(1, "a", cache.stamp());
+
+        Files.writeString(file, "1,changed");
+
+        // 確認の間隔が空いていないので、ファイルの状態を確認せずに保持しているデータを返す
+        assertThat(cache.get(1)).isEqualTo("a");
+    }
+
+    @Test
+    public void testGetRevalidatesEveryCallWhenIntervalIsZero() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("rows.csv"), "1,a");
+        System.setProperty("taskapp.cache.revalidateMillis", "0");
+        EntityCache<String> cache = EntityCache.shared(file.toString());
+        cache.put(1, "a", cache.stamp());
+
+        Files.writeString(file, "1,changed");
+
+        assertThat(cache.get(1)).isNull();
+    }
+
+    @Test
+    public void testSharedReturnsSameCacheWhileInUse() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("rows.csv"), "1,a");
+        EntityCache<String> cache = EntityCache.shared(file.toString());
+
+        assertThat(EntityCache.<String>shared(tempDir.resolve(".").resolve("rows.csv").toString())).isSameAs(cache);
+    }
+}
@@ -11,11 +11,14 @@ import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.taskapp.model.Log;
 
@@ -45,6 +48,9 @@ public class LogDataAccessTest {
         Path backupFile = Paths.get(BACKUP_FILE_PATH);
         Files.copy(backupFile, originalFile, StandardCopyOption.REPLACE_EXISTING);
         Files.delete(backupFile);
+        Files.deleteIfExists(Paths.get(TEST_FILE_PATH + ".idx"));
+        Files.deleteIfExists(Paths.get(TEST_FILE_PATH + ".snap"));
+        Files.deleteIfExists(Paths.get(TEST_FILE_PATH + ".lock"));
     }
 
     @Tag("Q3")
@@ -67,6 +73,17 @@ public class LogDataAccessTest {
         assertThat(actuaList).isEqualTo(expectedList);
     }
 
+    @Test
+    public void testStreamStopsAfterRequestedLogs() {
+        List<Log> firstTwo;
+        try (Stream<Log> logs = logDataAccess.stream()) {
+            firstTwo = logs.filter(log -> log.getTaskCode() == 3).limit(2).collect(Collectors.toList());
+        }
+        assertThat(firstTwo).extracting(Log::getStatus).containsExactly(0, 1);
+        assertThat(firstTwo).extracting(Log::getChangeDate)
+                .containsExactly(LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 11));
+    }
+
     @Tag("Q5")
     @Test
     public void testDeleteByTaskCode() {
@@ -86,6 +103,64 @@ public class LogDataAccessTest {
         assertThat(logs).doesNotContain(log2);
     }
 
+    @Test
+    public void testFindByTaskCodeFollowsSavesAndDeletes() {
+        Log log1 = new Log(4, 1, 2, LocalDate.of(2024, 1, 20));
+        Log log2 = new Log(5, 1, 0, LocalDate.of(2024, 1, 21));
+
+        assertThat(logDataAccess.findByTaskCode(4)).extracting(Log::getStatus).containsExactly(0, 1);
+
+        logDataAccess.save(log1);
+        logDataAccess.save(log2);
+        assertThat(logDataAccess.findByTaskCode(4)).extracting(Log::getStatus).containsExactly(0, 1, 2);
+
+        logDataAccess.deleteByTaskCode(3);
+
+        assertThat(logDataAccess.findByTaskCode(3)).isEmpty();
+        assertThat(logDataAccess.findByTaskCode(4)).extracting(Log::getChangeDate)
+                .containsExactly(LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 13), LocalDate.of(2024, 1, 20));
+        assertThat(logDataAccess.findByTaskCode(5)).containsExactly(log2);
+        assertThat(readLogsFromFile(TEST_FILE_PATH)).hasSize(6);
+    }
+
+    @Test
+    public void testDeleteByTaskCodeKeepsCrlfLineEndings(@TempDir Path tempDir) throws IOException {
+        Path logsFile = tempDir.resolve("logs.csv");
+        Files.writeString(logsFile, "Task_Code,Change_User_Code,Status,Change_Date\r\n1,1,0,2024-01-10\r\n"
+                + "2,1,0,2024-01-11\r\n1,1,1,2024-01-12\r\n3,2,0,2024-01-13");
+        LogDataAccess crlfLogDataAccess = new LogDataAccess(logsFile.toString());
+
+        crlfLogDataAccess.deleteByTaskCode(1);
+
+        // 行の直前のCRLFを合わせて削除し、CRは残らない
+        assertThat(Files.readString(logsFile)).isEqualTo(
+                "Task_Code,Change_User_Code,Status,Change_Date\r\n2,1,0,2024-01-11\r\n3,2,0,2024-01-13");
+        // 索引の位置も削除後のファイルと一致する
+        assertThat(crlfLogDataAccess.findByTaskCode(3)).extracting(Log::getChangeDate)
+                .containsExactly(LocalDate.of(2024, 1, 13));
+        crlfLogDataAccess.deleteByTaskCode(2);
+        assertThat(crlfLogDataAccess.findAll()).extracting(Log::getTaskCode).containsExactly(3);
+    }
+
+    @Test
+    public void testSnapshotReadModeFollowsCsvChanges() {
+        LogDataAccess snapshotLogDataAccess = new LogDataAccess(TEST_FILE_PATH, ReadMode.SNAPSHOT);
+
+        // 1回目でスナップショットを作り、2回目はスナップショットから読み込む
+        assertThat(snapshotLogDataAccess.findAll()).usingFieldByFieldElementComparator()
+                .isEqualTo(logDataAccess.findAll());
+        assertThat(Files.exists(Paths.get(TEST_FILE_PATH + ".snap"))).isTrue();
+        assertThat(snapshotLogDataAccess.findAll()).usingFieldByFieldElementComparator()
+                .isEqualTo(logDataAccess.findAll());
+
+        Log newLog = new Log(4, 1, 2, LocalDate.of(2024, 1, 20));
+        logDataAccess.save(newLog);
+
+        List<Log> logs = snapshotLogDataAccess.findAll();
+        assertThat(logs).usingFieldByFieldElementComparator().isEqualTo(logDataAccess.findAll());
+        assertThat(logs.get(logs.size() - 1)).isEqualToComparingFieldByField(newLog);
+    }
+
     private List<Log> readLogsFromFile(String filePath) {
         List<Log> logs = new ArrayList<>();
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
@@ -0,0 +1,56 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.model.Log;
+
+public class LogTableTest {
+    private LogTable table;
+
+    @BeforeEach
+    public void setUp() {
+        table = new LogTable(2);
+        table.add(new Log(1, 1, 0, LocalDate.of(2024, 1, 10)));
+        table.add(new Log(1, 2, 1, LocalDate.of(2024, 1, 11)));
+        table.add(new Log(2, 2, 1, LocalDate.of(2024, 1, 12)));
+        table.add(new Log(1, 1, 2, LocalDate.of(2024, 1, 13)));
+    }
+
+    @Test
+    public void testGetReturnsAddedLogs() {
+        assertThat(table.size()).isEqualTo(4);
+        assertThat(table.get(3)).isEqualToComparingFieldByField(new Log(1, 1, 2, LocalDate.of(2024, 1, 13)));
+        assertThatThrownBy(() -> table.get(4)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void testFilterAndCount() {
+        LogTable task1 = table.filter(row -> table.taskCode(row) == 1);
+
+        assertThat(task1.size()).isEqualTo(3);
+        assertThat(task1.toList()).extracting(Log::getStatus).containsExactly(0, 1, 2);
+        assertThat(table.count(row -> table.changeUserCode(row) == 2)).isEqualTo(2);
+        assertThat(table.countByStatus()).containsExactly(1, 2, 1);
+    }
+
+    @Test
+    public void testViewReadsCurrentRow() {
+        List<LocalDate> dates = new ArrayList<>();
+        table.forEach(view -> dates.add(view.getChangeDate()));
+
+        assertThat(dates).containsExactly(LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 11),
+                LocalDate.of(2024, 1, 12), LocalDate.of(2024, 1, 13));
+        LogTable.View view = table.view().moveTo(2);
+        assertThat(view.getTaskCode()).isEqualTo(2);
+        assertThat(view.getChangeUserCode()).isEqualTo(2);
+        assertThat(view.getStatus()).isEqualTo(1);
+        assertThat(view.toLog()).isEqualToComparingFieldByField(table.get(2));
+    }
+}
@@ -0,0 +1,86 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ParallelCsvLoaderTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testChunksMatchSequentialRead() throws IOException {
+        // 範囲に分かれるよう数MBのファイルを作る。空行や改行コードの違いも含める
+        Path file = tempDir.resolve("tasks.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("Code,Name,Status,RepUser\n");
+            for (int i = 1; i <= 200_000; i++) {
+                writer.write(i % 1000 + ",タスク" + i + "," + i % 3 + "," + (1 + i % 2));
+                writer.write(i % 7 == 0 ? "\r\n" : "\n");
+                if (i % 10_000 == 0) {
+                    writer.write("\n");
+                }
+            }
+        }
+
+        List<String> expected = new ArrayList<>();
+        try (CsvTokenizer csv = CsvTokenizer.open(file.toString())) {
+            csv.nextRow();
+            expected.addAll(readChunk(csv));
+        }
+        List<List<String>> chunks = ParallelCsvLoader.load(file.toString(), 4, this::readChunk);
+        List<String> actual = new ArrayList<>();
+        chunks.forEach(actual::addAll);
+
+        assertThat(chunks.size()).isGreaterThan(1);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void testLoadsReuseOnePoolPerParallelism() throws IOException {
+        Path file = tempDir.resolve("logs.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("TaskCode,ChangeUserCode,Status,ChangeDate\n");
+            for (int i = 1; i <= 200_000; i++) {
+                writer.write(i + ",1,0,2024-01-01\n");
+            }
+        }
+
+        // 共通プールを使わない並列数で読み込み、各範囲を読み込んだスレッドのプールを集める。
+        // 呼び出したスレッドが自分で範囲を読み込んだ場合はプールがnullになるので除く
+        int parallelism = ForkJoinPool.getCommonPoolParallelism() + 1;
+        Set<ForkJoinPool> pools = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 2; i++) {
+            ParallelCsvLoader.load(file.toString(), parallelism, csv -> {
+                ForkJoinPool pool = ForkJoinTask.getPool();
+                if (pool != null) {
+                    pools.add(pool);
+                }
+                return readChunk(csv);
+            });
+        }
+
+        assertThat(pools).isSubsetOf(ParallelCsvLoader.poolFor(parallelism));
+        assertThat(ParallelCsvLoader.poolFor(parallelism).isShutdown()).isFalse();
+    }
+
+    private List<String> readChunk(CsvTokenizer csv) throws IOException {
+        List<String> rows = new ArrayList<>();
+        while (csv.nextRow()) {
+            rows.add(csv.rowOffset() + ":" + csv.intField(0) + "," + csv.stringField(1) + "," + csv.intField(2));
+        }
+        return rows;
+    }
+}
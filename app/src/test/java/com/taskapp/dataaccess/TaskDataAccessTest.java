@@ -9,14 +9,20 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import com.taskapp.exception.AppException;
 import com.taskapp.model.Task;
 import com.taskapp.model.User;
 
@@ -49,6 +55,9 @@ public class TaskDataAccessTest {
         Path backupFile = Paths.get(BACKUP_FILE_PATH);
         Files.copy(backupFile, originalFile, StandardCopyOption.REPLACE_EXISTING);
         Files.delete(backupFile);
+        Files.deleteIfExists(Paths.get(TEST_FILE_PATH + ".overlay"));
+        Files.deleteIfExists(Paths.get(TEST_FILE_PATH + ".counts"));
+        Files.deleteIfExists(Paths.get(TEST_FILE_PATH + ".lock"));
     }
 
     @Tag("Q3")
@@ -129,6 +138,340 @@ public class TaskDataAccessTest {
         assertThat(tasks).doesNotContain(task2);
     }
 
+    @Test
+    public void testFindByCodeSeesLaterWrites() throws AppException {
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+        assertThat(taskDataAccess.findByCode(2).getStatus()).isEqualTo(0);
+
+        taskDataAccess.update(new Task(2, "taskB", 1, repUser));
+        assertThat(taskDataAccess.findByCode(2).getStatus()).isEqualTo(1);
+
+        taskDataAccess.save(new Task(2, "taskB", 2, repUser));
+        assertThat(taskDataAccess.findByCode(2).getStatus()).isEqualTo(2);
+    }
+
+    @Test
+    public void testUpdateSameLengthRewritesRowInPlace() throws IOException, AppException {
+        User repUser = new User(2, "鈴木二郎", "test2@example.com", "password2");
+        long size = Files.size(Paths.get(TEST_FILE_PATH));
+
+        taskDataAccess.update(new Task(2, "taskB", 1, repUser));
+
+        assertThat(Files.size(Paths.get(TEST_FILE_PATH))).isEqualTo(size);
+        // 上書き用ファイルには世代の印の空行だけを追記し、タスクの行は書かない
+        assertThat(Files.readAllLines(Paths.get(TEST_FILE_PATH + ".overlay"))).allMatch(String::isEmpty);
+        assertThat(Files.readAllLines(Paths.get(TEST_FILE_PATH))).contains("2,taskB,1,2");
+    }
+
+    @Test
+    public void testUpdateChangingLengthIsVisibleBeforeCompaction() throws AppException {
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+
+        taskDataAccess.update(new Task(2, "Updated taskB", 1, repUser));
+
+        assertThat(taskDataAccess.findByCode(2).getName()).isEqualTo("Updated taskB");
+        assertThat(taskDataAccess.findAll()).extracting(Task::getName)
+                .containsExactly("taskA", "Updated taskB", "taskC", "taskD");
+
+        taskDataAccess.compact();
+
+        assertThat(Files.exists(Paths.get(TEST_FILE_PATH + ".overlay"))).isFalse();
+        assertThat(readTasksFromFile(TEST_FILE_PATH)).extracting(Task::getName)
+                .containsExactly("taskA", "Updated taskB", "taskC", "taskD");
+    }
+
+    @Test
+    public void testWalWriteModeReplaysLogAndIgnoresTornTail(@TempDir Path tempDir) throws IOException, AppException {
+        Path tasksFile = TestCsvFiles.copyTasks(tempDir);
+        Path walFile = tempDir.resolve("tasks.csv.overlay");
+        byte[] original = Files.readAllBytes(tasksFile);
+        TaskDataAccess walTaskDataAccess = new TaskDataAccess(tasksFile.toString(), userDataAccess,
+                ReadMode.STREAM, WriteMode.WAL);
+        User repUser = new User(2, "鈴木二郎", "test2@example.com", "password2");
+
+        // 同じ長さの更新もtasks.csvは書き換えずにログに追記する
+        walTaskDataAccess.update(new Task(2, "taskB", 2, repUser));
+        assertThat(Files.readAllBytes(tasksFile)).isEqualTo(original);
+        assertThat(Files.readAllLines(walFile)).containsExactly("2,taskB,2,2");
+
+        // 書き込みの途中で中断した行は、再起動後の読み込みで無視される
+        Files.writeString(walFile, "3,taskC,0,2", StandardOpenOption.APPEND);
+        EntityCache.shared(tasksFile.toString(), walFile.toString()).invalidate();
+        TaskDataAccess restarted = new TaskDataAccess(tasksFile.toString(), userDataAccess, ReadMode.STREAM,
+                WriteMode.WAL);
+        assertThat(restarted.findByCode(2).getStatus()).isEqualTo(2);
+        assertThat(restarted.findByCode(3).getStatus()).isEqualTo(2);
+
+        // 次の追記で中断した行を取り除く
+        restarted.update(new Task(4, "taskD", 2, repUser));
+        assertThat(Files.readAllLines(walFile)).containsExactly("2,taskB,2,2", "4,taskD,2,2");
+
+        restarted.compact();
+
+        assertThat(walFile).doesNotExist();
+        assertThat(tempDir.resolve("tasks.csv.tmp")).doesNotExist();
+        assertThat(readTasksFromFile(tasksFile.toString())).extracting(Task::getStatus)
+                .containsExactly(0, 2, 2, 2);
+    }
+
+    @Test
+    public void testCountsFollowWritesWithoutReadingCsv(@TempDir Path tempDir) throws IOException, AppException {
+        Path tasksFile = TestCsvFiles.copyTasks(tempDir);
+        TaskDataAccess writingTaskDataAccess = new TaskDataAccess(tasksFile.toString(), userDataAccess);
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+
+        assertThat(writingTaskDataAccess.countByStatus()).containsExactly(entry(0, 2), entry(1, 1), entry(2, 1));
+        assertThat(writingTaskDataAccess.countByRepUser()).containsExactly(entry(1, 1), entry(2, 3));
+        assertThat(tempDir.resolve("tasks.csv.counts")).exists();
+
+        writingTaskDataAccess.save(new Task(5, "Task test", 0, repUser));
+        writingTaskDataAccess.update(new Task(2, "Updated taskB", 1, repUser));
+        writingTaskDataAccess.update(new Task(4, "taskD", 2, repUser));
+
+        // 別のインスタンスも保存した件数を使い、CSVファイルは開かない
+        EntityCache.shared(tasksFile.toString(), tasksFile + ".overlay").invalidate();
+        AtomicInteger taskFileOpens = new AtomicInteger();
+        TaskDataAccess restarted = TestCsvFiles.countingTasks(tasksFile, userDataAccess,
+                ReadMode.STREAM, taskFileOpens);
+        assertThat(restarted.countByStatus()).containsExactly(entry(0, 2), entry(1, 1), entry(2, 2));
+        assertThat(restarted.countByRepUser()).containsExactly(entry(1, 4), entry(2, 1));
+        assertThat(taskFileOpens.get()).isZero();
+
+        // 件数はfindAllで取得できるタスクを数えたものと同じ
+        List<Task> tasks = restarted.findAll();
+        assertThat(tasks).filteredOn(task -> task.getStatus() == 2).hasSize(2);
+        assertThat(tasks).filteredOn(task -> task.getRepUser().getCode() == 1).hasSize(4);
+    }
+
+    @Test
+    public void testUpdateAllRewritesFileOnce(@TempDir Path tempDir) throws IOException, AppException {
+        Path tasksFile = TestCsvFiles.copyTasks(tempDir);
+        TaskDataAccess writingTaskDataAccess = new TaskDataAccess(tasksFile.toString(), userDataAccess);
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+        writingTaskDataAccess.countByStatus();
+        // 長さが変わる更新は上書き用ファイルに追記される
+        writingTaskDataAccess.update(new Task(3, "Updated taskC", 2, repUser));
+        assertThat(tempDir.resolve("tasks.csv.overlay")).exists();
+
+        writingTaskDataAccess.updateAll(List.of(new Task(1, "taskA", 1, repUser), new Task(4, "taskD", 2, repUser),
+                new Task(99, "missing", 1, repUser)));
+
+        // 上書き用ファイルの内容も合わせて書き戻し、存在しないコードは無視する
+        assertThat(tempDir.resolve("tasks.csv.overlay")).doesNotExist();
+        assertThat(Files.readAllLines(tasksFile)).containsExactly("Code,Name,Status,RepUser", "1,taskA,1,1",
+                "2,taskB,0,2", "3,Updated taskC,2,1", "4,taskD,2,1");
+        assertThat(writingTaskDataAccess.countByStatus()).containsExactly(entry(0, 1), entry(1, 1), entry(2, 2));
+        assertThat(writingTaskDataAccess.countByRepUser()).containsExactly(entry(1, 3), entry(2, 1));
+    }
+
+    @Test
+    public void testUpdateAllSurvivesCrashBeforeOverlayIsDeleted(@TempDir Path tempDir)
+            throws IOException, AppException {
+        Path tasksFile = TestCsvFiles.copyTasks(tempDir);
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+        new TaskDataAccess(tasksFile.toString(), userDataAccess).update(new Task(2, "Updated taskB", 1, repUser));
+
+        keepingOverlay(tasksFile).updateAll(List.of(new Task(2, "Updated taskB", 2, repUser)));
+
+        // 上書き用ファイルに残った古い行より、書き戻した行が優先される
+        EntityCache.shared(tasksFile.toString(), tasksFile + ".overlay").invalidate();
+        TaskDataAccess restarted = new TaskDataAccess(tasksFile.toString(), userDataAccess);
+        assertThat(restarted.findAll()).extracting(Task::getStatus).containsExactly(0, 2, 2, 1);
+    }
+
+    @Test
+    public void testUpdateAllWithUpdaterReadsAndWritesOnce(@TempDir Path tempDir) throws Exception {
+        Path tasksFile = TestCsvFiles.copyTasks(tempDir);
+        AtomicInteger taskFileOpens = new AtomicInteger();
+        TaskDataAccess countingTaskDataAccess = TestCsvFiles.countingTasks(tasksFile, userDataAccess,
+                ReadMode.STREAM, taskFileOpens);
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+
+        // 更新できない場合はファイルに触れない
+        assertThatThrownBy(() -> countingTaskDataAccess.updateAll(Set.of(2), current -> {
+            throw new AppException("更新できません");
+        })).isInstanceOf(AppException.class);
+        assertThat(Files.readAllLines(tasksFile)).containsExactly("Code,Name,Status,Rep_User_Code", "1,taskA,0,1",
+                "2,taskB,0,2", "3,taskC,2,2", "4,taskD,1,2");
+
+        List<Task> updated = countingTaskDataAccess.updateAll(Set.of(2, 4, 99), current -> {
+            assertThat(current).containsOnlyKeys(2, 4);
+            assertThat(current.get(4).getRepUser().getName()).isEqualTo("鈴木二郎");
+            return List.of(new Task(2, "taskB", 1, repUser), new Task(4, "taskD", 2, repUser));
+        });
+
+        assertThat(updated).extracting(Task::getCode).containsExactly(2, 4);
+        assertThat(Files.readAllLines(tasksFile)).containsExactly("Code,Name,Status,RepUser", "1,taskA,0,1",
+                "2,taskB,1,1", "3,taskC,2,2", "4,taskD,2,1");
+        // 書き戻した行から索引を作るので、続けて読み込んでもファイルは読み直さない
+        assertThat(countingTaskDataAccess.findByCode(4).getStatus()).isEqualTo(2);
+        assertThat(countingTaskDataAccess.findAll()).extracting(Task::getStatus).containsExactly(0, 1, 2, 2);
+        assertThat(taskFileOpens.get()).isEqualTo(1);
+
+        // 索引の位置は書き戻したファイルと一致する
+        countingTaskDataAccess.update(new Task(4, "taskD", 1, repUser));
+        assertThat(Files.readAllLines(tasksFile)).containsExactly("Code,Name,Status,RepUser", "1,taskA,0,1",
+                "2,taskB,1,1", "3,taskC,2,2", "4,taskD,1,1");
+    }
+
+    @Test
+    public void testUpdateAllWithUpdaterSurvivesCrashBeforeOverlayIsDeleted(@TempDir Path tempDir) throws Exception {
+        Path tasksFile = TestCsvFiles.copyTasks(tempDir);
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+        // 長さが変わる更新で、上書き用ファイルに古くなる行を残す
+        new TaskDataAccess(tasksFile.toString(), userDataAccess).update(new Task(3, "Updated taskC", 1, repUser));
+
+        keepingOverlay(tasksFile).updateAll(Set.of(3), current -> List.of(new Task(3, "Updated taskC", 2, repUser)));
+
+        // tasks.csvを置き換えた後、上書き用ファイルを削除する前に中断した状態から読み込む
+        assertThat(tempDir.resolve("tasks.csv.overlay")).exists();
+        EntityCache.shared(tasksFile.toString(), tasksFile + ".overlay").invalidate();
+        TaskDataAccess restarted = new TaskDataAccess(tasksFile.toString(), userDataAccess);
+        assertThat(restarted.findByCode(3).getStatus()).isEqualTo(2);
+        assertThat(restarted.findAll()).extracting(Task::getStatus).containsExactly(0, 0, 2, 1);
+    }
+
+    @Test
+    public void testMappedReadModeMatchesStreamReadMode() throws AppException {
+        UserDataAccess mappedUserDataAccess = new UserDataAccess(TEST_FILE_PATH_USER, ReadMode.MAPPED);
+        TaskDataAccess mappedTaskDataAccess = new TaskDataAccess(TEST_FILE_PATH, mappedUserDataAccess,
+                ReadMode.MAPPED);
+
+        List<Task> expected = taskDataAccess.findAll();
+        List<Task> actual = mappedTaskDataAccess.findAll();
+
+        assertThat(actual).usingFieldByFieldElementComparator().isEqualTo(expected);
+        assertThat(actual).extracting(task -> task.getRepUser().getName())
+                .containsExactly("鈴木一郎", "鈴木二郎", "鈴木二郎", "鈴木二郎");
+        assertThat(mappedTaskDataAccess.findByCode(3).getName()).isEqualTo("taskC");
+    }
+
+    @Test
+    public void testSnapshotReadModeReadsCsvOnlyWhenChanged(@TempDir Path tempDir) throws IOException, AppException {
+        Path tasksFile = TestCsvFiles.copyTasks(tempDir);
+        AtomicInteger taskFileOpens = new AtomicInteger();
+        TaskDataAccess snapshotTaskDataAccess = TestCsvFiles.countingTasks(tasksFile, userDataAccess,
+                ReadMode.SNAPSHOT, taskFileOpens);
+        List<Task> expected = taskDataAccess.findAll();
+
+        assertThat(snapshotTaskDataAccess.findAll()).usingRecursiveFieldByFieldElementComparator()
+                .isEqualTo(expected);
+        assertThat(tempDir.resolve("tasks.csv.snap")).exists();
+
+        // キャッシュを捨てても、スナップショットから読み込むのでCSVファイルは開かない
+        EntityCache.shared(tasksFile.toString(), tasksFile + ".overlay").invalidate();
+        assertThat(snapshotTaskDataAccess.findAll()).usingRecursiveFieldByFieldElementComparator()
+                .isEqualTo(expected);
+        assertThat(taskFileOpens.get()).isEqualTo(1);
+
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+        snapshotTaskDataAccess.save(new Task(5, "Task test", 0, repUser));
+        List<Task> tasks = snapshotTaskDataAccess.findAll();
+
+        assertThat(taskFileOpens.get()).isEqualTo(2);
+        assertThat(tasks).extracting(Task::getName).containsExactly("taskA", "taskB", "taskC", "taskD", "Task test");
+    }
+
+    @Test
+    public void testInPlaceUpdateDiscardsSnapshot(@TempDir Path tempDir) throws Exception {
+        Path tasksFile = TestCsvFiles.copyTasks(tempDir);
+        TaskDataAccess snapshotTaskDataAccess = new TaskDataAccess(tasksFile.toString(), userDataAccess,
+                ReadMode.SNAPSHOT);
+        snapshotTaskDataAccess.findAll();
+        FileTime snapshotTime = Files.getLastModifiedTime(tasksFile);
+
+        // 同じ長さの行はファイル上で書き換えるので、サイズは変わらない
+        snapshotTaskDataAccess.update(new Task(2, "taskB", 1, new User(2, "鈴木二郎", "", "")));
+        // 更新日時が同じになった場合でも、古いスナップショットは使わない
+        Files.setLastModifiedTime(tasksFile, snapshotTime);
+        EntityCache.shared(tasksFile.toString(), tasksFile + ".overlay").invalidate();
+        TaskDataAccess restarted = new TaskDataAccess(tasksFile.toString(), userDataAccess, ReadMode.SNAPSHOT);
+
+        assertThat(restarted.findAll()).extracting(Task::getStatus).containsExactly(0, 1, 2, 1);
+    }
+
+    @Test
+    public void testReaderSeesSameSizeInPlaceUpdate(@TempDir Path tempDir) throws Exception {
+        Path tasksFile = TestCsvFiles.copyTasks(tempDir);
+        // 別のプロセスの読み込み側。索引を作っておく
+        TaskDataAccess reader = new TaskDataAccess(tasksFile.toString(), userDataAccess);
+        assertThat(reader.findByCode(2).getStatus()).isEqualTo(0);
+        FileTime readTime = Files.getLastModifiedTime(tasksFile);
+
+        new TaskDataAccess(tasksFile.toString(), userDataAccess)
+                .update(new Task(2, "taskB", 1, new User(2, "鈴木二郎", "", "")));
+        // サイズも更新日時も変わらなくても、上書き用ファイルの世代で変更に気付く
+        Files.setLastModifiedTime(tasksFile, readTime);
+        EntityCache.shared(tasksFile.toString(), tasksFile + ".overlay").invalidate();
+
+        assertThat(reader.findByCode(2).getStatus()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFindPageFiltersAndPages() throws AppException {
+        assertThat(taskDataAccess.findPage(TaskDataAccess.ANY, 2, 0, 10)).extracting(Task::getName)
+                .containsExactly("taskB", "taskC", "taskD");
+        assertThat(taskDataAccess.findPage(TaskDataAccess.ANY, 2, 1, 1)).extracting(Task::getName)
+                .containsExactly("taskC");
+        assertThat(taskDataAccess.findPage(0, TaskDataAccess.ANY, 0, 10)).extracting(Task::getName)
+                .containsExactly("taskA", "taskB");
+
+        // 上書き用ファイルにある更新後の内容で判定する
+        User repUser = new User(2, "鈴木二郎", "test2@example.com", "password2");
+        taskDataAccess.update(new Task(2, "taskB-renamed", 1, repUser));
+
+        List<Task> inProgress = taskDataAccess.findPage(1, TaskDataAccess.ANY, 0, 10);
+        assertThat(inProgress).extracting(Task::getName).containsExactly("taskB-renamed", "taskD");
+        assertThat(inProgress).extracting(task -> task.getRepUser().getName()).containsOnly("鈴木二郎");
+    }
+
+    @Test
+    public void testFindAllOpensUsersFileOnce(@TempDir Path tempDir) throws IOException, AppException {
+        // 他のテストで作られたキャッシュを使わないように、新しいファイルで確認する
+        Path usersFile = TestCsvFiles.copyUsers(tempDir);
+        AtomicInteger userFileOpens = new AtomicInteger();
+        UserDataAccess countingUserDataAccess = TestCsvFiles.countingUsers(usersFile, userFileOpens);
+        TaskDataAccess countingTaskDataAccess = new TaskDataAccess(TEST_FILE_PATH, countingUserDataAccess);
+
+        List<Task> tasks = countingTaskDataAccess.findAll();
+
+        assertThat(tasks).hasSize(4);
+        assertThat(tasks).allMatch(task -> task.getRepUser() != null);
+        assertThat(userFileOpens.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFindAllRereadsOnlyAfterFileChanges(@TempDir Path tempDir) throws IOException, AppException {
+        Path tasksFile = TestCsvFiles.copyTasks(tempDir);
+        AtomicInteger taskFileOpens = new AtomicInteger();
+        TaskDataAccess countingTaskDataAccess = TestCsvFiles.countingTasks(tasksFile, userDataAccess,
+                ReadMode.STREAM, taskFileOpens);
+
+        countingTaskDataAccess.findAll();
+        countingTaskDataAccess.findAll();
+        assertThat(taskFileOpens.get()).isEqualTo(1);
+
+        // 別のインスタンスから書き込んだ内容も反映される
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+        new TaskDataAccess(tasksFile.toString(), userDataAccess).save(new Task(5, "Task test", 0, repUser));
+        List<Task> tasks = countingTaskDataAccess.findAll();
+
+        assertThat(taskFileOpens.get()).isEqualTo(2);
+        assertThat(tasks).hasSize(5);
+        assertThat(tasks.get(4).getName()).isEqualTo("Task test");
+    }
+
+    /**
+     * 上書き用ファイルを削除しないTaskDataAccessを作成します。削除する直前に中断した場合と同じ状態になります。
+     */
+    private TaskDataAccess keepingOverlay(Path tasksFile) {
+        return new TaskDataAccess(tasksFile.toString(), userDataAccess) {
+            @Override
+            void deleteOverlay() {
+            }
+        };
+    }
+
     private List<Task> readTasksFromFile(String filePath) {
         List<Task> tasks = new ArrayList<>();
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
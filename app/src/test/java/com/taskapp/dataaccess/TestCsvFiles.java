@@ -0,0 +1,77 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * テスト用のCSVファイルを一時ディレクトリにコピーし、CSVファイルを開いた回数を数えるDataAccessを作成します。
+ * コピーしたファイルは他のテストとキャッシュを共有しないので、ファイルを読み込んだ回数を確かめられます。
+ */
+final class TestCsvFiles {
+    static final String TASKS = "src/test/resources/test_tasks.csv";
+
+    static final String USERS = "src/test/resources/test_users.csv";
+
+    private TestCsvFiles() {
+    }
+
+    /**
+     * test_tasks.csvをtasks.csvという名前でコピーします。
+     *
+     * @param directory コピー先のディレクトリ
+     * @return コピーしたファイル
+     */
+    static Path copyTasks(Path directory) throws IOException {
+        return Files.copy(Paths.get(TASKS), directory.resolve("tasks.csv"));
+    }
+
+    /**
+     * test_users.csvをusers.csvという名前でコピーします。
+     *
+     * @param directory コピー先のディレクトリ
+     * @return コピーしたファイル
+     */
+    static Path copyUsers(Path directory) throws IOException {
+        return Files.copy(Paths.get(USERS), directory.resolve("users.csv"));
+    }
+
+    /**
+     * tasks.csvを開くたびにopensを1つ増やすTaskDataAccessを作成します。
+     *
+     * @param tasksFile      tasks.csvのパス
+     * @param userDataAccess 担当ユーザーを読み込むUserDataAccess
+     * @param readMode       tasks.csvの読み込み方
+     * @param opens          tasks.csvを開いた回数
+     * @return 作成したTaskDataAccess
+     */
+    static TaskDataAccess countingTasks(Path tasksFile, UserDataAccess userDataAccess, ReadMode readMode,
+            AtomicInteger opens) {
+        return new TaskDataAccess(tasksFile.toString(), userDataAccess, readMode) {
+            @Override
+            CsvTokenizer openCsv() throws IOException {
+                opens.incrementAndGet();
+                return super.openCsv();
+            }
+        };
+    }
+
+    /**
+     * users.csvを開くたびにopensを1つ増やすUserDataAccessを作成します。
+     *
+     * @param usersFile users.csvのパス
+     * @param opens     users.csvを開いた回数
+     * @return 作成したUserDataAccess
+     */
+    static UserDataAccess countingUsers(Path usersFile, AtomicInteger opens) {
+        return new UserDataAccess(usersFile.toString()) {
+            @Override
+            CsvTokenizer openCsv() throws IOException {
+                opens.incrementAndGet();
+                return super.openCsv();
+            }
+        };
+    }
+}
@@ -0,0 +1,83 @@
+package com.taskapp.dataaccess.jdbc;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.dataaccess.Repositories;
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class JdbcTaskRepositoryTest {
+    private static final String TEST_FILE_PATH = "src/test/resources/test_tasks.csv";
+    private static final String TEST_FILE_PATH_USER = "src/test/resources/test_users.csv";
+    private static final String TEST_FILE_PATH_LOG = "src/test/resources/test_logs.csv";
+    private Repositories csv;
+    private Repositories h2;
+    private TaskRepository tasks;
+
+    @BeforeEach
+    public void setUp() {
+        csv = Repositories.csv(TEST_FILE_PATH_USER, TEST_FILE_PATH, TEST_FILE_PATH_LOG);
+        // テストごとに別のインメモリのデータベースにCSVファイルの内容を読み込む
+        h2 = Repositories.jdbc("jdbc:h2:mem:" + System.nanoTime(), csv);
+        tasks = h2.tasks();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        h2.close();
+        csv.close();
+    }
+
+    @Test
+    public void testImportedTasksMatchCsv() throws AppException {
+        List<Task> expected = csv.tasks().findAll();
+        List<Task> actual = tasks.findAll();
+
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).getCode()).isEqualTo(expected.get(i).getCode());
+            assertThat(actual.get(i).getName()).isEqualTo(expected.get(i).getName());
+            assertThat(actual.get(i).getStatus()).isEqualTo(expected.get(i).getStatus());
+            assertThat(actual.get(i).getRepUser().getName()).isEqualTo(expected.get(i).getRepUser().getName());
+        }
+        assertThat(tasks.countByStatus()).isEqualTo(csv.tasks().countByStatus());
+        assertThat(tasks.countByRepUser()).isEqualTo(csv.tasks().countByRepUser());
+    }
+
+    @Test
+    public void testSaveUpdateAndCount() throws AppException {
+        User repUser = h2.users().findByCode(1);
+        tasks.save(new Task(5, "taskE", 0, repUser));
+        tasks.update(new Task(2, "taskB", 1, h2.users().findByCode(2)));
+
+        Task updated = tasks.findByCode(2);
+        assertThat(updated.getStatus()).isEqualTo(1);
+        assertThat(updated.getRepUser().getEmail()).isEqualTo("test2@example.com");
+        assertThat(tasks.findByCode(5).getName()).isEqualTo("taskE");
+        assertThat(tasks.findByCode(99)).isNull();
+        assertThat(tasks.countByStatus()).isEqualTo(Map.of(0, 2, 1, 2, 2, 1));
+        assertThat(tasks.findPage(1, 2, 0, 10)).extracting(Task::getName).containsExactly("taskB", "taskD");
+        assertThat(tasks.findPage(TaskRepository.ANY, TaskRepository.ANY, 3, 10)).extracting(Task::getName)
+                .containsExactly("taskD", "taskE");
+    }
+
+    @Test
+    public void testFailureIsNotReportedAsEmptyResult() {
+        h2.close();
+
+        // 空の結果や0件の更新と区別できるよう、失敗は例外で知らせる
+        assertThatThrownBy(() -> tasks.findAll()).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> tasks.countByStatus()).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> tasks.updateAll(List.of(new Task(2, "taskB", 1, null))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
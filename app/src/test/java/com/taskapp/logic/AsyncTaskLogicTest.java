@@ -0,0 +1,113 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class AsyncTaskLogicTest {
+    @Mock
+    private TaskDataAccess taskDataAccess;
+    @Mock
+    private LogDataAccess logDataAccess;
+    @Mock
+    private UserDataAccess userDataAccess;
+
+    private AsyncTaskLogic asyncTaskLogic;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        asyncTaskLogic = new AsyncTaskLogic(new TaskLogic(taskDataAccess, logDataAccess, userDataAccess));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        asyncTaskLogic.close();
+    }
+
+    @Test
+    public void testChangeStatusCallsOverlap() throws Exception {
+        User loginUser = new User(1, "John", "", "");
+        when(taskDataAccess.findByCode(anyInt()))
+                .thenAnswer(invocation -> new Task(invocation.getArgument(0), "Task", 0, loginUser));
+        // 2件の更新が同時に実行されていなければ、どちらの更新も終わらない
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            bothStarted.countDown();
+            assertThat(bothStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            return null;
+        }).when(taskDataAccess).update(any(Task.class));
+
+        CompletableFuture<Void> first = asyncTaskLogic.changeStatus(1, 1, loginUser);
+        CompletableFuture<Void> second = asyncTaskLogic.changeStatus(2, 1, loginUser);
+        CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS);
+
+        verify(taskDataAccess, times(2)).update(any(Task.class));
+        verify(logDataAccess, times(2)).save(any(Log.class));
+    }
+
+    @Test
+    public void testAppExceptionCompletesFutureExceptionally() throws AppException {
+        User loginUser = new User(1, "John", "", "");
+        when(userDataAccess.findByCode(9)).thenReturn(null);
+
+        CompletableFuture<Void> future = asyncTaskLogic.save(1, "Task 1", 9, loginUser);
+
+        assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(AppException.class);
+        verify(taskDataAccess, never()).save(any(Task.class));
+    }
+
+    @Test
+    public void testSaveAllSavesTasksAndLogsInBulk() throws Exception {
+        User loginUser = new User(1, "John", "", "");
+        User alice = new User(2, "Alice", "", "");
+        when(userDataAccess.findAllByCodes(Set.of(2))).thenReturn(Map.of(2, alice));
+
+        asyncTaskLogic.saveAll(List.of(new Task(1, "Task 1", 0, alice), new Task(2, "Task 2", 0, alice)), loginUser)
+                .get(10, TimeUnit.SECONDS);
+
+        verify(taskDataAccess).saveAll(List.of(new Task(1, "Task 1", 0, alice), new Task(2, "Task 2", 0, alice)));
+        verify(logDataAccess).saveAll(argThat(logs -> logs.size() == 2));
+    }
+
+    @Test
+    public void testCountByStatusCompletesWithTheCounts() throws Exception {
+        when(taskDataAccess.countByStatus()).thenReturn(Map.of(0, 2, 1, 1));
+
+        assertThat(asyncTaskLogic.countByStatus().get(10, TimeUnit.SECONDS)).isEqualTo(Map.of(0, 2, 1, 1));
+    }
+
+    @Test
+    public void testCountByRepUserFailureIsNotWrapped() {
+        IllegalStateException failure = new IllegalStateException("読み込めません");
+        when(taskDataAccess.countByRepUser()).thenThrow(failure);
+
+        assertThatThrownBy(() -> asyncTaskLogic.countByRepUser().get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCause(failure);
+    }
+}
@@ -0,0 +1,52 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class StatusTransitionsTest {
+    private final User loginUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+
+    @Test
+    public void testOnlyNextStatusIsAllowed() {
+        for (int from = -1; from <= 3; from++) {
+            for (int to = -1; to <= 3; to++) {
+                boolean expected = (from == 0 && to == 1) || (from == 1 && to == 2);
+                assertThat(StatusTransitions.isAllowed(from, to)).as("%d -> %d", from, to).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    public void testTransitionAllValidatesEveryChangeBeforeReturning() throws AppException {
+        User repUser = new User(2, "鈴木二郎", "test2@example.com", "password2");
+        Map<Integer, Task> current = Map.of(1, new Task(1, "taskA", 0, repUser), 2, new Task(2, "taskB", 1, repUser),
+                3, new Task(3, "taskC", 2, repUser));
+        Map<Integer, Integer> changes = new LinkedHashMap<>();
+        changes.put(2, 2);
+        changes.put(1, 1);
+
+        List<Task> updated = StatusTransitions.transitionAll(changes, current, loginUser);
+
+        assertThat(updated).extracting(Task::getCode, Task::getStatus).containsExactly(tuple(2, 2), tuple(1, 1));
+        assertThat(updated).allMatch(task -> task.getRepUser() == loginUser);
+        // 渡したタスクは変更しない
+        assertThat(current.get(1).getStatus()).isZero();
+
+        changes.put(3, 0);
+        assertThatThrownBy(() -> StatusTransitions.transitionAll(changes, current, loginUser))
+                .isInstanceOf(AppException.class)
+                .hasMessage("ステータスは、前のステータスより1つ先のもののみを選択してください");
+        assertThatThrownBy(() -> StatusTransitions.transitionAll(Map.of(9, 1), current, loginUser))
+                .isInstanceOf(AppException.class)
+                .hasMessage("存在するタスクコードを入力してください");
+    }
+}
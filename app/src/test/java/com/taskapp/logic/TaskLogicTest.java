@@ -5,7 +5,10 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -15,6 +18,7 @@ import org.mockito.MockitoAnnotations;
 
 import com.taskapp.dataaccess.LogDataAccess;
 import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.TaskRepository;
 import com.taskapp.dataaccess.UserDataAccess;
 import com.taskapp.exception.AppException;
 import com.taskapp.model.Log;
@@ -59,6 +63,21 @@ public class TaskLogicTest {
         assertThat(tasks).hasSize(2);
     }
 
+    @Test
+    public void testShowAllWithFiltersPushesDownToDataAccess() throws AppException {
+        User loginUser = new User(1, "John", "", "");
+        List<Task> page = new ArrayList<>();
+        page.add(new Task(3, "Task 3", 1, loginUser));
+        when(taskDataAccess.findPage(1, 1, 20, 10)).thenReturn(page);
+
+        taskLogic.showAll(loginUser, 1, true, 20, 10);
+        taskLogic.showAll(loginUser, TaskDataAccess.ANY, false, 0, 10);
+
+        verify(taskDataAccess).findPage(1, 1, 20, 10);
+        verify(taskDataAccess).findPage(TaskDataAccess.ANY, TaskDataAccess.ANY, 0, 10);
+        verify(taskDataAccess, never()).findAll();
+    }
+
     @Tag("Q3")
     @Test
     public void testSave() throws AppException {
@@ -82,6 +101,46 @@ public class TaskLogicTest {
         verify(logDataAccess).save(any(Log.class));
     }
 
+    @Test
+    public void testSaveAllLooksUpAssigneesOnceAndWritesInBulk() throws AppException {
+        User loginUser = new User(1, "John", "", "");
+        User alice = new User(2, "Alice", "", "");
+        User bob = new User(3, "Bob", "", "");
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Task(1, "Task 1", 0, new User(2, "", "", "")));
+        tasks.add(new Task(2, "Task 2", 0, new User(3, "", "", "")));
+        tasks.add(new Task(3, "Task 3", 0, new User(2, "", "", "")));
+        Map<Integer, User> users = new HashMap<>();
+        users.put(2, alice);
+        users.put(3, bob);
+        when(userDataAccess.findAllByCodes(Set.of(2, 3))).thenReturn(users);
+
+        taskLogic.saveAll(tasks, loginUser);
+
+        verify(userDataAccess).findAllByCodes(Set.of(2, 3));
+        verify(userDataAccess, never()).findByCode(anyInt());
+        verify(taskDataAccess, never()).save(any(Task.class));
+        verify(taskDataAccess).saveAll(List.of(new Task(1, "Task 1", 0, alice), new Task(2, "Task 2", 0, bob),
+                new Task(3, "Task 3", 0, alice)));
+        verify(logDataAccess).saveAll(argThat(logs -> logs.size() == 3));
+    }
+
+    @Test
+    public void testSaveAllWritesNothingWhenAnAssigneeIsMissing() {
+        User loginUser = new User(1, "John", "", "");
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Task(1, "Task 1", 0, new User(2, "", "", "")));
+        tasks.add(new Task(2, "Task 2", 0, new User(9, "", "", "")));
+        Map<Integer, User> users = new HashMap<>();
+        users.put(2, new User(2, "Alice", "", ""));
+        when(userDataAccess.findAllByCodes(Set.of(2, 9))).thenReturn(users);
+
+        assertThatThrownBy(() -> taskLogic.saveAll(tasks, loginUser)).isInstanceOf(AppException.class);
+
+        verify(taskDataAccess, never()).saveAll(any());
+        verify(logDataAccess, never()).saveAll(any());
+    }
+
     @Tag("Q4")
     @Test
     public void testChangeStatus() throws AppException {
@@ -104,6 +163,63 @@ public class TaskLogicTest {
         verify(logDataAccess).save(any(Log.class));
     }
 
+    @Test
+    public void testChangeStatusBatchReadsAndWritesOnce() throws AppException {
+        User loginUser = new User(1, "John", "", "");
+        User alice = new User(2, "Alice", "", "");
+        Map<Integer, Task> current = new HashMap<>();
+        current.put(1, new Task(1, "Task 1", 0, alice));
+        current.put(2, new Task(2, "Task 2", 1, alice));
+        Map<Integer, Integer> changes = new HashMap<>();
+        changes.put(1, 1);
+        changes.put(2, 2);
+        List<List<Task>> written = new ArrayList<>();
+        when(taskDataAccess.updateAll(eq(Set.of(1, 2)), any())).thenAnswer(invocation -> {
+            List<Task> updated = invocation.<TaskRepository.Updater>getArgument(1).update(current);
+            written.add(updated);
+            return updated;
+        });
+
+        taskLogic.changeStatusBatch(changes, loginUser);
+
+        // 読み込みから更新までを1回の呼び出しで行う
+        verify(taskDataAccess, never()).findAllByCodes(any());
+        verify(taskDataAccess, never()).findByCode(anyInt());
+        verify(taskDataAccess, never()).update(any(Task.class));
+        verify(taskDataAccess, never()).updateAll(anyCollection());
+        // 変更後のステータスと変更したユーザーでまとめて更新する
+        assertThat(written).hasSize(1);
+        assertThat(written.get(0)).hasSize(2).allMatch(
+                task -> task.getStatus() == changes.get(task.getCode()) && task.getRepUser() == loginUser);
+        verify(logDataAccess).saveAll(argThat(logs -> logs.size() == 2));
+    }
+
+    @Test
+    public void testChangeStatusBatchWritesNothingWhenAChangeIsIllegal() throws AppException {
+        User loginUser = new User(1, "John", "", "");
+        Map<Integer, Task> current = new HashMap<>();
+        current.put(1, new Task(1, "Task 1", 0, loginUser));
+        current.put(2, new Task(2, "Task 2", 2, loginUser));
+        Map<Integer, Integer> changes = new HashMap<>();
+        changes.put(1, 1);
+        changes.put(2, 1);
+        when(taskDataAccess.updateAll(eq(Set.of(1, 2)), any())).thenAnswer(
+                invocation -> invocation.<TaskRepository.Updater>getArgument(1).update(current));
+
+        assertThatThrownBy(() -> taskLogic.changeStatusBatch(changes, loginUser))
+                .isInstanceOf(AppException.class)
+                .hasMessage("ステータスは、前のステータスより1つ先のもののみを選択してください");
+
+        verify(logDataAccess, never()).saveAll(any());
+    }
+
+    @Test
+    public void testFlushLogsWritesPendingLogs() {
+        taskLogic.flushLogs();
+
+        verify(logDataAccess).flush();
+    }
+
     @Tag("Q5")
     @Test
     public void testDelete() throws AppException {
@@ -0,0 +1,41 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class TaskRendererTest {
+    @Test
+    public void testOutputMatchesPrintln() {
+        User loginUser = new User(1, "鈴木一郎", "", "");
+        User otherUser = new User(2, "鈴木二郎", "", "");
+        Task[] tasks = {
+                new Task(1, "taskA", 0, loginUser),
+                new Task(2, "taskB", 1, otherUser),
+                new Task(3, "taskC", 2, otherUser),
+        };
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        PrintStream expectedOut = new PrintStream(expected, true, StandardCharsets.UTF_8);
+        expectedOut.println("タスク名：あなたが担当しています, ステータス: 未着手");
+        expectedOut.println("タスク名：鈴木二郎が担当しています, ステータス: 着手中");
+        expectedOut.println("タスク名：鈴木二郎が担当しています, ステータス: 完了");
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        TaskRenderer renderer = new TaskRenderer(new PrintStream(actual, false, StandardCharsets.UTF_8));
+        for (Task task : tasks) {
+            renderer.render(task, loginUser);
+        }
+        assertThat(actual.size()).isZero();
+        renderer.flush();
+
+        assertThat(actual.toByteArray()).isEqualTo(expected.toByteArray());
+    }
+}
@@ -0,0 +1,48 @@
+package com.taskapp.metrics;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    public void testBucketsCoverAllValuesInOrder() {
+        assertThat(LatencyHistogram.bucketOf(0)).isEqualTo(0);
+        assertThat(LatencyHistogram.bucketOf(63)).isEqualTo(63);
+        int previous = -1;
+        for (long value = 0; value < 100_000; value++) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertThat(bucket).isBetween(previous, previous + 1);
+            assertThat(LatencyHistogram.highestValueOf(bucket)).isGreaterThanOrEqualTo(value);
+            previous = bucket;
+        }
+        assertThat(LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(Long.MAX_VALUE)))
+                .isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testPercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertThat(histogram.count()).isEqualTo(1000);
+        assertThat(histogram.mean()).isEqualTo(500_500.0);
+        assertThat(histogram.max()).isEqualTo(1_000_000);
+        assertThat(histogram.percentile(50)).isBetween(500_000L, 500_000L + 500_000 / 32);
+        assertThat(histogram.percentile(99)).isBetween(990_000L, 990_000L + 990_000 / 32);
+        assertThat(histogram.percentile(100)).isEqualTo(1_000_000);
+    }
+
+    @Test
+    public void testDumpListsRecordedMetrics() {
+        Metrics.counter("test.rows").add(42);
+        Metrics.histogram("Test.call").record(2_500_000);
+
+        String dump = Metrics.dump();
+
+        assertThat(dump).contains("test.rows").contains("42");
+        assertThat(dump).containsPattern("Test\\.call +1 +2\\.500");
+    }
+}